@@ -0,0 +1,57 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+
+/**
+ * Decides how much work may be in memory at once.
+ *
+ * Every file is charged an estimate of the heap its tokens, syntax tree and symbol
+ * table take while it's checked. A file is let in only while the charges in flight stay
+ * under the budget and the heap has room for it. One file is always let in when
+ * nothing else is running, so a file bigger than the budget still gets checked.
+ */
+public class Admission {
+    // Heap bytes per source byte. A checked file keeps about 40x its size; the rest is parse garbage.
+    static final int EXPANSION = 64;
+
+    // Don't start more work once the heap is this full.
+    static final double HEAP_LIMIT = 0.85;
+
+    // The heap shrinks without telling anyone, so waiting for it is polling.
+    static final long HEAP_POLL_MS = 50;
+
+    private final long budget;
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private long inFlight = 0;
+
+    public Admission(long budget) {
+        this.budget = budget;
+    }
+
+    // Half of the heap, the other half is for the output waiting to be printed and for GC.
+    public Admission() {
+        this(Runtime.getRuntime().maxMemory() / 2);
+    }
+
+    public static long cost(long sourceBytes) {
+        return sourceBytes * EXPANSION;
+    }
+
+    public synchronized void acquire(long cost) throws InterruptedException {
+        while(this.inFlight > 0 && (this.inFlight + cost > this.budget || !headroom(cost))) {
+            wait(HEAP_POLL_MS);
+        }
+        this.inFlight += cost;
+    }
+
+    public synchronized void release(long cost) {
+        this.inFlight -= cost;
+        notifyAll();
+    }
+
+    private boolean headroom(long cost) {
+        MemoryUsage heap = this.memory.getHeapMemoryUsage();
+        long max = heap.getMax() > 0 ? heap.getMax() : Runtime.getRuntime().maxMemory();
+        return heap.getUsed() + cost <= max * HEAP_LIMIT;
+    }
+}
@@ -0,0 +1,270 @@
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Microbenchmarks for the front end, outside of the compiler itself.
+ *
+ *   java Benchmark lex <file>...     lexes the files with every lexer, prints MB/s and tokens per lexer
+ *   java Benchmark parse <file>...   parses the files, streaming tokens to the parser or to DescentParser,
+ *                                    with a TokenBuffer, with a LookaheadMemo or from a lexer thread
+ *
+ * The "-skip" rows don't keep comments (see PooledTokenManager.keepComments).
+ * The "-scan" rows recognize the same tokens but don't make Token objects, images or
+ * positions, so they measure the lexers themselves. The parser needs all of those, so it's
+ * the full rows ("pooled" against "table") that tell what a compile gains.
+ *
+ * Every row gets WARMUP untimed rounds over all the files, then ROUNDS timed ones; the median is
+ * printed, with what a round allocates.
+ */
+public class Benchmark {
+    static final int WARMUP = 60;
+    static final int ROUNDS = 30;
+
+    // Reuses one token: only the kind is filled in.
+    static class ScanOnly extends SourceTokenManager {
+        private final Token token = new Token();
+
+        ScanOnly(SourceCharStream stream) {
+            super(stream);
+        }
+
+        @Override
+        protected Token jjFillToken() {
+            this.token.kind = jjmatchedKind;
+            return this.token;
+        }
+
+        // No image to decode.
+        @Override
+        protected void CommonTokenAction(Token t) {
+        }
+    }
+
+    static class TableScanOnly extends TableTokenManager {
+        private final Token token = new Token();
+
+        TableScanOnly(SourceCharStream stream) {
+            super(stream);
+        }
+
+        @Override
+        protected Token jjFillToken() {
+            this.token.kind = jjmatchedKind;
+            return this.token;
+        }
+
+        // No image to decode.
+        @Override
+        protected void CommonTokenAction(Token t) {
+        }
+    }
+
+    // Counts the tokens the parser takes.
+    static class Counting extends SourceTokenManager {
+        int tokens = 0;
+
+        Counting(SourceCharStream stream) {
+            super(stream);
+        }
+
+        @Override
+        public Token getNextToken() {
+            this.tokens++;
+            return super.getNextToken();
+        }
+    }
+
+    interface Lexer {
+        // Lexes (or parses) source to EOF, returns the number of tokens.
+        int run(byte[] source) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if(args.length < 2 || !(args[0].equals("lex") || args[0].equals("parse"))) {
+            System.err.println("Usage: java Benchmark lex|parse <inputFile>...");
+            System.exit(1);
+        }
+        byte[][] sources = new byte[args.length - 1][];
+        for(int i = 1; i < args.length; i++) {
+            sources[i - 1] = Files.readAllBytes(Paths.get(args[i]));
+        }
+        if(args[0].equals("lex")) {
+            lex(sources);
+        }
+        else {
+            parse(sources);
+        }
+    }
+
+    static void lex(byte[][] sources) throws Exception {
+        measure("ring", sources, source -> count(new MiniJavaParserTokenManager(new JavaCharStream(new ByteArrayInputStream(source)))));
+        // The ring as CompileTask runs it, with pooled images.
+        measure("pooled", sources, source -> count(new PooledTokenManager(new JavaCharStream(new ByteArrayInputStream(source)))));
+        // Files that aren't plain ASCII are skipped, they lex no tokens here.
+        measure("ascii", sources, source -> {
+            SourceCharStream ascii = SourceCharStream.ascii(source);
+            return ascii == null ? 0 : count(new SourceTokenManager(ascii));
+        });
+        measure("table", sources, source -> {
+            SourceCharStream ascii = SourceCharStream.ascii(source);
+            return count(new TableTokenManager(ascii != null ? ascii : SourceCharStream.of(source)));
+        });
+        // Comments skipped instead of made into special tokens.
+        measure("table-skip", sources, source -> {
+            SourceCharStream ascii = SourceCharStream.ascii(source);
+            TableTokenManager lexer = new TableTokenManager(ascii != null ? ascii : SourceCharStream.of(source));
+            lexer.keepComments = false;
+            return count(lexer);
+        });
+        measure("ascii-scan", sources, source -> {
+            SourceCharStream ascii = SourceCharStream.ascii(source);
+            return ascii == null ? 0 : count(new ScanOnly(ascii));
+        });
+        measure("table-scan", sources, source -> {
+            SourceCharStream ascii = SourceCharStream.ascii(source);
+            return ascii == null ? 0 : count(new TableScanOnly(ascii));
+        });
+        // What CompileTask does with --lexer auto, pre-scans included.
+        measure("auto", sources, source -> {
+            SourceCharStream ascii = SourceCharStream.ascii(source);
+            if(ascii != null) {
+                return count(new SourceTokenManager(ascii));
+            }
+            CharBuffer chars = SourceCharStream.decode(source);
+            if(SourceCharStream.hasEscapes(chars.array(), chars.limit())) {
+                return count(new PooledTokenManager(new JavaCharStream(new ByteArrayInputStream(source))));
+            }
+            return count(new SourceTokenManager(SourceCharStream.withoutEscapes(chars.array(), chars.limit())));
+        });
+    }
+
+    // Sources that don't parse count as no tokens.
+    static void parse(byte[][] sources) throws Exception {
+        measure("stream", sources, source -> {
+            Counting lexer = new Counting(SourceCharStream.of(source));
+            try{
+                new MiniJavaParser(lexer).Goal();
+            }
+            catch(ParseException | TokenMgrError ex){
+                return 0;
+            }
+            return lexer.tokens;
+        });
+        // The same tokens to the hand-written parser, see DescentParser.
+        measure("descent", sources, source -> {
+            Counting lexer = new Counting(SourceCharStream.of(source));
+            try{
+                new DescentParser(lexer).Goal();
+            }
+            catch(ParseException | TokenMgrError ex){
+                return 0;
+            }
+            return lexer.tokens;
+        });
+        measure("replay", sources, source -> {
+            Counting lexer = new Counting(SourceCharStream.of(source));
+            try{
+                new MiniJavaParser(new ReplayTokenManager(lexer)).Goal();
+            }
+            catch(ParseException | TokenMgrError ex){
+                return 0;
+            }
+            return lexer.tokens;
+        });
+        // What --tokenize-first runs: DescentParser reading the arrays by index.
+        measure("buffer", sources, source -> {
+            TokenBuffer tokens = TokenBuffer.lex(new SourceTokenManager(SourceCharStream.of(source)));
+            try{
+                new DescentParser(tokens).Goal();
+            }
+            catch(ParseException | TokenMgrError ex){
+                return 0;
+            }
+            return tokens.size;
+        });
+        // Lookahead scans remembered, see LookaheadMemo.
+        LookaheadMemo memo = new LookaheadMemo();
+        measure("memo", sources, source -> {
+            Counting lexer = new Counting(SourceCharStream.of(source));
+            MiniJavaParser parser = new MiniJavaParser(lexer);
+            parser.memo = memo;
+            try{
+                parser.Goal();
+            }
+            catch(ParseException | TokenMgrError ex){
+                return 0;
+            }
+            finally{
+                memo.clear();
+            }
+            return lexer.tokens;
+        });
+        System.out.println(String.format(Locale.ROOT, "memo: %d lookups, %d hits (%.1f%%)", memo.lookups, memo.hits,
+            memo.lookups == 0 ? 0.0 : 100.0 * memo.hits / memo.lookups));
+        // Lexing on a thread of its own, see PipelinedTokenManager. It can only win with a core to spare,
+        // and what the lexer thread allocates isn't counted.
+        System.out.println("available cores: " + Runtime.getRuntime().availableProcessors());
+        measure("pipelined", sources, source -> {
+            Counting lexer = new Counting(SourceCharStream.of(source));
+            PipelinedTokenManager tokens = new PipelinedTokenManager(lexer);
+            try{
+                new MiniJavaParser(tokens).Goal();
+            }
+            catch(ParseException | TokenMgrError ex){
+                return 0;
+            }
+            finally{
+                tokens.close();
+            }
+            return lexer.tokens;
+        });
+    }
+
+    static int count(MiniJavaParserTokenManager lexer) {
+        int tokens = 0;
+        while(lexer.getNextToken().kind != MiniJavaParserConstants.EOF) {
+            tokens++;
+        }
+        return tokens;
+    }
+
+    static void measure(String name, byte[][] sources, Lexer lexer) throws Exception {
+        long bytes = 0;
+        for(byte[] source : sources) {
+            bytes += source.length;
+        }
+        long tokens = 0;
+        for(int i = 0; i < WARMUP; i++) {
+            tokens = round(sources, lexer);
+        }
+        long[] times = new long[ROUNDS];
+        long allocated = allocated();
+        for(int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            round(sources, lexer);
+            times[i] = System.nanoTime() - start;
+        }
+        allocated = (allocated() - allocated) / ROUNDS;
+        Arrays.sort(times);
+        long median = times[ROUNDS / 2];
+        System.out.println(String.format(Locale.ROOT, "%-12s %8.1f MB/s %12d tokens %10.3f ms %10.1f MB allocated", name,
+            bytes / 1e6 / (median / 1e9), tokens, median / 1e6, allocated / 1e6));
+    }
+
+    private static long allocated() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    private static long round(byte[][] sources, Lexer lexer) throws Exception {
+        long tokens = 0;
+        for(byte[] source : sources) {
+            tokens += lexer.run(source);
+        }
+        return tokens;
+    }
+}
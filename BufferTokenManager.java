@@ -0,0 +1,42 @@
+/**
+ * Hands a TokenBuffer to the generated parser, as Tokens with the image and positions
+ * SourceTokenManager would have given them. DescentParser reads a buffer by index instead;
+ * this is for when it hands a file to the generated parser, and for the profiled parse.
+ */
+public class BufferTokenManager extends SourceTokenManager {
+    private final TokenBuffer tokens;
+    private int next = 0;
+
+    public BufferTokenManager(TokenBuffer tokens) {
+        super(tokens.source);
+        this.tokens = tokens;
+    }
+
+    @Override
+    public Token getNextToken() {
+        TokenBuffer tokens = this.tokens;
+        int i = this.next;
+        if(i == tokens.size) {
+            if(tokens.error != null) {
+                throw tokens.error;
+            }
+            // Lookahead may ask past the end, keep answering EOF like the real token manager.
+            i--;
+        }
+        else {
+            this.next++;
+        }
+
+        int kind = tokens.kinds[i];
+        if(kind == EOF) {
+            this.source.selectEof();
+        }
+        else {
+            this.source.select(tokens.starts[i], tokens.ends[i] - 1);
+        }
+        jjmatchedKind = kind;
+        Token t = jjFillToken();
+        CommonTokenAction(t);
+        return t;
+    }
+}
@@ -1,3 +1,4 @@
+import java.io.PrintWriter;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
@@ -29,15 +30,15 @@ public class ClassSymbolTable {
         return this.current;
     }
 
-    public void printClass() {
-        System.out.println("Fields");
+    public void printClass(PrintWriter out) {
+        out.println("Fields");
         for (Map.Entry<String, String> entry : this.fields.entrySet()) {
-            System.out.println(entry.getKey() + " " + entry.getValue());
+            out.println(entry.getKey() + " " + entry.getValue());
         }
-        System.out.println("Methods");
+        out.println("Methods");
         for (Map.Entry<String, MethodSymbolTable> entry : this.methods.entrySet()) {
-            System.out.println(entry.getKey());
-            entry.getValue().printMethod();
+            out.println(entry.getKey());
+            entry.getValue().printMethod(out);
         }
     }
 
@@ -65,7 +66,9 @@ public class ClassSymbolTable {
         return position;
     }
 
-    public void printClassInfo(Map<String, ClassSymbolTable> table) {
+    // Where every field starts in an object of this class, after the parent's fields.
+    public Map<String, Integer> fieldOffsets(Map<String, ClassSymbolTable> table) {
+        Map<String, Integer> offsets = new LinkedHashMap<String, Integer>();
         int position = 0;
 
         if(this.parent != null) {
@@ -73,9 +76,8 @@ public class ClassSymbolTable {
             position = parentClass.classFieldsOffset();
         }
 
-        System.out.println("--Variables---");
         for (Map.Entry<String, String> entry : this.fields.entrySet()) {
-            System.out.println(this.name + "." + entry.getKey() + ":" + position);
+            offsets.put(entry.getKey(), position);
             if(entry.getValue().equals("int")) {
                 position += 4;
             }
@@ -86,17 +88,34 @@ public class ClassSymbolTable {
                 position += 8;
             }
         }
+        return offsets;
+    }
+
+    public Map<String, Integer> methodOffsets(Map<String, ClassSymbolTable> table) {
+        Map<String, Integer> offsets = new LinkedHashMap<String, Integer>();
+        int position = 0;
 
-        position = 0;
         if(this.parent != null) {
             ClassSymbolTable parentClass = table.get(this.parent);
             position = parentClass.classMethodsOffset();
         }
 
-        System.out.println("---Methods---");
         for (Map.Entry<String, MethodSymbolTable> entry : this.methods.entrySet()) {
-            System.out.println(this.name + "." + entry.getKey() + ":" + position);
+            offsets.put(entry.getKey(), position);
             position += 8;
         }
+        return offsets;
+    }
+
+    public void printClassInfo(Map<String, ClassSymbolTable> table, PrintWriter out) {
+        out.println("--Variables---");
+        for (Map.Entry<String, Integer> entry : fieldOffsets(table).entrySet()) {
+            out.println(this.name + "." + entry.getKey() + ":" + entry.getValue());
+        }
+
+        out.println("---Methods---");
+        for (Map.Entry<String, Integer> entry : methodOffsets(table).entrySet()) {
+            out.println(this.name + "." + entry.getKey() + ":" + entry.getValue());
+        }
     }
 }
\ No newline at end of file
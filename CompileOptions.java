@@ -0,0 +1,83 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How every file in a run is checked. Main fills one from the command line and every
+ * CompileTask copies it (see CompileTask.set); the fields mean what the task's fields
+ * of the same name do.
+ */
+public class CompileOptions {
+    public ResultCache cache = null;
+    public String format = "text";
+    public String lexer = "ring";
+    public boolean tokenizeFirst = false;
+    public boolean keepComments = true;
+    public boolean pipeline = false;
+    public boolean memoLookahead = false;
+    public String parser = "generated";
+    public boolean countLookahead = false;
+
+    /**
+     * Reads args[i] into this if it's one of the options here (all but the cache), and returns the index
+     * of the last word it took, or -1 if it isn't one. A value that isn't known is an IllegalArgumentException.
+     */
+    public int parse(String[] args, int i) {
+        if(args[i].equals("--lexer") && i + 1 < args.length) {
+            this.lexer = args[i + 1];
+            if(!this.lexer.equals("auto") && !this.lexer.equals("ring") && !this.lexer.equals("table")) {
+                throw new IllegalArgumentException("--lexer must be ring, auto or table.");
+            }
+            return i + 1;
+        }
+        else if(args[i].equals("--parser") && i + 1 < args.length) {
+            this.parser = args[i + 1];
+            if(!this.parser.equals("generated") && !this.parser.equals("descent")) {
+                throw new IllegalArgumentException("--parser must be generated or descent.");
+            }
+            return i + 1;
+        }
+        else if(args[i].equals("--output") && i + 1 < args.length) {
+            this.format = args[i + 1];
+            if(!this.format.equals("text") && !this.format.equals("silent") && !this.format.equals("json")) {
+                throw new IllegalArgumentException("--output must be text, silent or json.");
+            }
+            return i + 1;
+        }
+        else if(args[i].equals("--count-lookahead")) {
+            this.countLookahead = true;
+        }
+        else if(args[i].equals("--tokenize-first")) {
+            this.tokenizeFirst = true;
+        }
+        else if(args[i].equals("--skip-comments")) {
+            this.keepComments = false;
+        }
+        else if(args[i].equals("--pipeline")) {
+            this.pipeline = true;
+        }
+        else if(args[i].equals("--memo-lookahead")) {
+            this.memoLookahead = true;
+        }
+        else {
+            return -1;
+        }
+        return i;
+    }
+
+    // The words parse reads back into these options, for passing them on (see CompileServer.request).
+    public List<String> args() {
+        List<String> args = new ArrayList<>();
+        args.add("--output");
+        args.add(this.format);
+        args.add("--lexer");
+        args.add(this.lexer);
+        args.add("--parser");
+        args.add(this.parser);
+        if(this.tokenizeFirst) args.add("--tokenize-first");
+        if(!this.keepComments) args.add("--skip-comments");
+        if(this.pipeline) args.add("--pipeline");
+        if(this.memoLookahead) args.add("--memo-lookahead");
+        if(this.countLookahead) args.add("--count-lookahead");
+        return args;
+    }
+}
@@ -0,0 +1,157 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps one warm JVM around and checks files for clients over a Unix domain socket.
+ *
+ * Protocol, one request per connection:
+ *   client -> server: the client's working directory on the first line, its options (CompileOptions.args)
+ *                     separated by spaces on the second, then one file path per line as the client was
+ *                     given it. An empty line (or EOF) ends the request. Relative paths are read from the
+ *                     client's directory, and results name them as given.
+ *   server -> client: for every path, in order, a header line "OUTCOME outBytes errBytes"
+ *                     followed by exactly that many bytes of stdout and then of stderr.
+ * The cache is the server's own (--cache on --server), whatever the client's options.
+ *
+ * Every worker thread keeps its own parser, see FrontEnd.
+ */
+public class CompileServer {
+    private final Path socket;
+    private final ExecutorService pool;
+    public ResultCache cache = null;
+
+    public CompileServer(Path socket, int jobs) {
+        this.socket = socket;
+        this.pool = Executors.newFixedThreadPool(jobs);
+    }
+
+    public void serve() throws IOException {
+        Files.deleteIfExists(this.socket);
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(this.socket));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try{
+                Files.deleteIfExists(this.socket);
+            }
+            catch(IOException ex){
+                // Nothing left to do about it.
+            }
+        }));
+        System.err.println("Listening on " + this.socket);
+
+        while(true) {
+            SocketChannel client = server.accept();
+            this.pool.submit(() -> handle(client));
+        }
+    }
+
+    private void handle(SocketChannel client) {
+        try(SocketChannel channel = client){
+            BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            OutputStream out = Channels.newOutputStream(channel);
+
+            Path directory = Paths.get(readHeader(in));
+            CompileOptions options = new CompileOptions();
+            String[] args = readHeader(in).split(" ");
+            for(int i = 0; i < args.length; i++) {
+                if(args[i].isEmpty()) {
+                    continue;
+                }
+                int last = options.parse(args, i);
+                if(last < 0) {
+                    throw new IOException("Unknown option from the client: " + args[i]);
+                }
+                i = last;
+            }
+            options.cache = this.cache;
+
+            String line;
+            while((line = in.readLine()) != null && !line.isEmpty()) {
+                CompileTask task = new CompileTask(line).set(options);
+                task.directory = directory;
+                task.call();
+
+                byte[] taskOut = task.outBytes();
+                byte[] taskErr = task.errBytes();
+                String header = task.outcome + " " + taskOut.length + " " + taskErr.length + "\n";
+                out.write(header.getBytes(StandardCharsets.UTF_8));
+                out.write(taskOut);
+                out.write(taskErr);
+                out.flush();
+            }
+        }
+        catch(Exception ex){
+            System.err.println("Client connection failed: " + ex);
+        }
+    }
+
+    private static String readHeader(BufferedReader in) throws IOException {
+        String line = in.readLine();
+        if(line == null) {
+            throw new IOException("Client closed the connection before its request.");
+        }
+        return line;
+    }
+
+    /**
+     * Send the files to a running server and print the results as if they were checked locally
+     * with options. Returns true if every file checked OK.
+     */
+    public static boolean request(Path socket, List<String> files, CompileOptions options, PrintStream out, PrintStream err) throws IOException {
+        boolean ok = true;
+        try(SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))){
+            OutputStream request = Channels.newOutputStream(channel);
+            StringBuilder lines = new StringBuilder();
+            // The server doesn't share our working directory.
+            lines.append(Paths.get("").toAbsolutePath()).append('\n');
+            lines.append(String.join(" ", options.args())).append('\n');
+            for(String file : files) {
+                lines.append(file).append('\n');
+            }
+            lines.append('\n');
+            request.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+            request.flush();
+
+            InputStream response = Channels.newInputStream(channel);
+            for(int i = 0; i < files.size(); i++) {
+                String[] header = readLine(response).split(" ");
+                byte[] taskOut = response.readNBytes(Integer.parseInt(header[1]));
+                byte[] taskErr = response.readNBytes(Integer.parseInt(header[2]));
+                err.print(new String(taskErr, StandardCharsets.UTF_8));
+                err.flush();
+                out.print(new String(taskOut, StandardCharsets.UTF_8));
+                out.flush();
+                ok &= Outcome.valueOf(header[0]) == Outcome.OK;
+            }
+        }
+        return ok;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while((c = in.read()) != '\n') {
+            if(c == -1) {
+                throw new IOException("Server closed the connection.");
+            }
+            line.append((char) c);
+        }
+        return line.toString();
+    }
+}
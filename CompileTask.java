@@ -0,0 +1,455 @@
+import syntaxtree.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+/**
+ * Parse -> DeclVisitor -> TypeCheckVisitor for a single input file.
+ * Every task has its own symbol table and parses with its thread's parser,
+ * so tasks can run on different threads. If it's not given streams to write to, the task keeps
+ * its output in buffers until Main gets to print it.
+ * Whatever goes wrong is caught here and recorded in outcome, so one bad
+ * program can't take the rest of the batch down with it.
+ */
+public class CompileTask implements Callable<CompileTask> {
+    public final String fileName;
+    public final PrintStream out;
+    public final PrintStream err;
+    public Outcome outcome = null;
+
+    // The error message if the file wasn't OK, for reports that want it apart from the dumps.
+    public String diagnostic = null;
+
+    // Where the time went, in nanoseconds. All zero if the result came from the cache.
+    public long parseTime = 0;
+    public long declTime = 0;
+    public long typeCheckTime = 0;
+    public boolean cached = false;
+
+    // If set, this is checked instead of reading fileName.
+    public byte[] source = null;
+
+    // If set, a relative fileName is read from here instead of the working directory. Messages still name it as given.
+    public Path directory = null;
+
+    // If set, results are looked up by file contents before doing any work.
+    public ResultCache cache = null;
+
+    // If set, every phase is measured into it. Lexing is then done up front, so it can be timed apart from parsing.
+    public PhaseProfile profile = null;
+
+    // How the findings are printed, see Report.create.
+    public String format = "text";
+
+    // "ring", the default, lexes through JavaCharStream.
+    // "auto" lexes the bytes of a plain ASCII file as they are, a file with other chars but no backslash-u
+    // from a SourceCharStream without escape processing, and the rest with the ring.
+    // "table" holds the whole file in a SourceCharStream and lexes it with TableTokenManager.
+    // Files from MappedCharStream.THRESHOLD up are mapped either way.
+    public String lexer = "ring";
+
+    // If set, the file is lexed whole into a TokenBuffer before parsing, and DescentParser reads it by index
+    // whatever parser is set; the generated one only takes over on an error. Mapped files are left out.
+    public boolean tokenizeFirst = false;
+
+    // If set, files from PipelinedTokenManager.THRESHOLD up are lexed on a thread of their own while they're parsed.
+    public boolean pipeline = false;
+
+    // If false, the lexers skip comments instead of making special tokens of them. Nothing here reads them.
+    public boolean keepComments = true;
+
+    // If set, the parser remembers its lookahead scans (see LookaheadMemo); memoLookups and memoHits say how that went.
+    public boolean memoLookahead = false;
+    public long memoLookups = 0;
+    public long memoHits = 0;
+
+    // If set, the parser counts what its lookaheads do into lookahead, by production (see LookaheadCounters).
+    public boolean countLookahead = false;
+    public LookaheadCounters lookahead = null;
+
+    // "generated" is MiniJavaParser, "descent" the hand-written DescentParser. Both build the same tree.
+    public String parser = "generated";
+
+    private final ByteArrayOutputStream outBuffer;
+    private final ByteArrayOutputStream errBuffer;
+
+    public CompileTask(String fileName, PrintStream out, PrintStream err) {
+        this.fileName = fileName;
+        this.out = out;
+        this.err = err;
+        this.outBuffer = null;
+        this.errBuffer = null;
+    }
+
+    public CompileTask(String fileName) {
+        this.fileName = fileName;
+        this.outBuffer = new ByteArrayOutputStream();
+        this.errBuffer = new ByteArrayOutputStream();
+        // UTF-8 whatever the platform's charset, so outBytes can be decoded as that.
+        this.out = new PrintStream(this.outBuffer, false, StandardCharsets.UTF_8);
+        this.err = new PrintStream(this.errBuffer, false, StandardCharsets.UTF_8);
+    }
+
+    // Takes the options the whole run shares.
+    public CompileTask set(CompileOptions options) {
+        this.cache = options.cache;
+        this.format = options.format;
+        this.lexer = options.lexer;
+        this.tokenizeFirst = options.tokenizeFirst;
+        this.keepComments = options.keepComments;
+        this.pipeline = options.pipeline;
+        this.memoLookahead = options.memoLookahead;
+        this.parser = options.parser;
+        this.countLookahead = options.countLookahead;
+        return this;
+    }
+
+    @Override
+    public CompileTask call() throws Exception {
+        FileInputStream fis = null;
+        try{
+            if(this.source != null) {
+                if(this.cache == null) {
+                    checkBytes(this.source, this.out, this.err);
+                }
+                else {
+                    checkCached(this.source);
+                }
+                return this;
+            }
+
+            fis = new FileInputStream(path());
+            if(this.cache == null && fis.getChannel().size() >= MappedCharStream.THRESHOLD) {
+                check(null, MappedCharStream.map(fis.getChannel()), this.out, this.err);
+            }
+            else if(this.cache == null && (!this.lexer.equals("ring") || this.tokenizeFirst)) {
+                checkBytes(fis.readAllBytes(), this.out, this.err);
+            }
+            else if(this.cache == null) {
+                check(fis, null, this.out, this.err);
+            }
+            else {
+                checkCached(fis.readAllBytes());
+            }
+        }
+        catch(FileNotFoundException ex){
+            // "<path> (No such file or directory)", about the file the user named.
+            String message = ex.getMessage();
+            if(message != null && message.startsWith(path())) {
+                message = this.fileName + message.substring(path().length());
+            }
+            this.outcome = Outcome.IO_ERROR;
+            this.diagnostic = message;
+            this.err.println(message);
+        }
+        catch(IOException ex){
+            this.outcome = Outcome.IO_ERROR;
+            this.diagnostic = ex.getMessage();
+            this.err.println(ex.getMessage());
+        }
+        finally{
+            try{
+                if(fis != null) fis.close();
+            }
+            catch(IOException ex){
+                this.err.println(ex.getMessage());
+            }
+        }
+        return this;
+    }
+
+    private String path() {
+        return this.directory == null ? this.fileName : this.directory.resolve(this.fileName).toString();
+    }
+
+    private void checkCached(byte[] source) throws IOException {
+        String key = this.cache.key(cacheOptions(), source);
+        ResultCache.Entry entry;
+        try{
+            entry = this.cache.get(key);
+        }
+        catch(RuntimeException ex){
+            // A broken entry is a miss, it costs this file a check and not the batch.
+            entry = null;
+        }
+        if(entry == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            PrintStream outStream = new PrintStream(out, false, StandardCharsets.UTF_8);
+            PrintStream errStream = new PrintStream(err, false, StandardCharsets.UTF_8);
+            checkBytes(source, outStream, errStream);
+            outStream.flush();
+            errStream.flush();
+
+            entry = new ResultCache.Entry(this.outcome, this.diagnostic, out.toByteArray(), err.toByteArray());
+            // Internal errors may be a deep stack or a bug we fix later, don't keep them.
+            if(this.outcome != Outcome.INTERNAL_ERROR) {
+                this.cache.put(key, entry);
+            }
+        }
+        else {
+            this.cached = true;
+        }
+        this.outcome = entry.outcome;
+        this.diagnostic = entry.diagnostic;
+        // Entries are UTF-8, the streams may be the console's charset.
+        this.err.print(new String(entry.err, StandardCharsets.UTF_8));
+        this.err.flush();
+        this.out.print(new String(entry.out, StandardCharsets.UTF_8));
+        this.out.flush();
+    }
+
+    /**
+     * What a result depends on besides the source and the compiler. The same source prints differently
+     * in every format. The front ends are all meant to print the same, but they are different code, so
+     * a bug in one of them mustn't be answered from or carried over to another's results.
+     */
+    private String cacheOptions() {
+        return this.format + " " + this.lexer + " " + this.parser + (this.tokenizeFirst ? " tokenize-first" : "")
+            + (this.keepComments ? "" : " skip-comments") + (this.pipeline ? " pipeline" : "")
+            + (this.memoLookahead ? " memo-lookahead" : "");
+    }
+
+    private void checkBytes(byte[] source, PrintStream out, PrintStream err) throws IOException {
+        // A TokenBuffer is lexed from a SourceCharStream, whatever the lexer.
+        if(this.lexer.equals("table") || this.tokenizeFirst) {
+            SourceCharStream ascii = SourceCharStream.ascii(source);
+            check(null, ascii != null ? ascii : SourceCharStream.of(source), out, err);
+            return;
+        }
+        if(this.lexer.equals("auto")) {
+            SourceCharStream ascii = SourceCharStream.ascii(source);
+            if(ascii != null) {
+                check(null, ascii, out, err);
+                return;
+            }
+            CharBuffer chars = SourceCharStream.decode(source);
+            if(!SourceCharStream.hasEscapes(chars.array(), chars.limit())) {
+                check(null, SourceCharStream.withoutEscapes(chars.array(), chars.limit()), out, err);
+                return;
+            }
+        }
+        check(new ByteArrayInputStream(source), null, out, err);
+    }
+
+    // Lexes stream if it's given, in otherwise.
+    private void check(InputStream in, JavaCharStream stream, PrintStream out, PrintStream err) throws IOException {
+        PhaseProfile profile = this.profile;
+        Report report = Report.create(this.format, out, err);
+        LookaheadMemo memo = this.memoLookahead ? LookaheadMemo.forThread() : null;
+        long lookups = memo != null ? memo.lookups : 0;
+        long hits = memo != null ? memo.hits : 0;
+        LookaheadCounters counters = this.countLookahead ? new LookaheadCounters() : null;
+        this.lookahead = counters;
+        try{
+            long start = System.nanoTime();
+            Goal root;
+            try{
+                if(profile != null) {
+                    root = parseProfiled(stream != null ? stream : new JavaCharStream(in), profile, memo, counters);
+                }
+                else if(stream instanceof SourceCharStream && this.tokenizeFirst) {
+                    root = descent(TokenBuffer.lex(sourceLexer((SourceCharStream) stream)), counters).Goal();
+                }
+                else if(this.parser.equals("descent")) {
+                    root = parseDescent(stream != null ? stream : new JavaCharStream(in), counters);
+                }
+                else if(pipelined(stream)) {
+                    root = FrontEnd.parse(new PipelinedTokenManager(lexer(stream)), memo, counters);
+                }
+                else if(stream instanceof SourceCharStream && this.lexer.equals("table")) {
+                    root = FrontEnd.parseTable((SourceCharStream) stream, this.keepComments, memo, counters);
+                }
+                else if(stream instanceof SourceCharStream) {
+                    root = FrontEnd.parse((SourceCharStream) stream, this.keepComments, memo, counters);
+                }
+                else if(stream != null) {
+                    root = FrontEnd.parse(stream, this.keepComments, memo, counters);
+                }
+                else {
+                    root = FrontEnd.parse(in, this.keepComments, memo, counters);
+                }
+            }
+            finally{
+                // Also when it fails, that is the time it took to find the error.
+                this.parseTime = System.nanoTime() - start;
+            }
+
+            report.parsed();
+
+            start = System.nanoTime();
+            if(profile != null) profile.begin(PhaseProfile.DECL);
+            SymbolTable table = new SymbolTable(report);
+            DeclVisitor eval = new DeclVisitor();
+            root.accept(eval, table);
+            if(profile != null) profile.end();
+            this.declTime = System.nanoTime() - start;
+
+            report.tables(table);
+
+            start = System.nanoTime();
+            if(profile != null) profile.begin(PhaseProfile.TYPECHECK);
+            TypeCheckVisitor eval2 = new TypeCheckVisitor();
+            root.accept(eval2, table);
+            if(profile != null) profile.end();
+            this.typeCheckTime = System.nanoTime() - start;
+
+            this.outcome = Outcome.OK;
+        }
+        catch(TokenMgrError ex){
+            this.outcome = Outcome.LEXICAL_ERROR;
+            this.diagnostic = ex.getMessage();
+            report.error(this.outcome, ex.getMessage());
+        }
+        catch(ParseException ex){
+            this.outcome = Outcome.PARSE_ERROR;
+            this.diagnostic = ex.getMessage();
+            report.error(this.outcome, ex.getMessage());
+        }
+        catch(StackOverflowError ex){
+            // Deeply nested input, the thread is still fine once we unwind.
+            this.outcome = Outcome.INTERNAL_ERROR;
+            this.diagnostic = "internal error: " + ex;
+            report.error(this.outcome, this.fileName + ": internal error: " + ex);
+        }
+        catch(VirtualMachineError ex){
+            // Out of memory and friends, nothing after this can be trusted.
+            throw ex;
+        }
+        catch(RuntimeException | Error ex){
+            this.outcome = Outcome.INTERNAL_ERROR;
+            this.diagnostic = "internal error: " + ex;
+            report.error(this.outcome, this.fileName + ": internal error: " + ex);
+        }
+        catch(IOException ex){
+            throw ex;
+        }
+        catch(Exception ex){
+            // The visitors report semantic errors with plain Exceptions.
+            this.outcome = Outcome.SEMANTIC_ERROR;
+            this.diagnostic = ex.getMessage();
+            report.error(this.outcome, ex.getMessage());
+        }
+        finally{
+            // Count the phase that failed too.
+            if(profile != null) profile.end();
+            if(memo != null) {
+                this.memoLookups = memo.lookups - lookups;
+                this.memoHits = memo.hits - hits;
+                LookaheadMemo.count(this.memoLookups, this.memoHits);
+                memo.clear();
+            }
+            report.flush();
+        }
+    }
+
+    private Goal parseProfiled(JavaCharStream stream, PhaseProfile profile, LookaheadMemo memo, LookaheadCounters counters) throws ParseException {
+        profile.begin(PhaseProfile.LEX);
+        TokenBuffer buffer = null;
+        MiniJavaParserTokenManager tokens;
+        if(stream instanceof SourceCharStream) {
+            // Offsets instead of Token objects, the whole file's tokens don't have to fit in the heap at once.
+            buffer = TokenBuffer.lex(sourceLexer((SourceCharStream) stream));
+            tokens = new BufferTokenManager(buffer);
+        }
+        else {
+            PooledTokenManager lexer = new PooledTokenManager(stream);
+            lexer.keepComments = this.keepComments;
+            tokens = new ReplayTokenManager(lexer);
+        }
+        profile.end();
+
+        profile.begin(PhaseProfile.PARSE);
+        Goal root;
+        if(buffer != null && (this.parser.equals("descent") || this.tokenizeFirst)) {
+            root = descent(buffer, counters).Goal();
+        }
+        else if(this.parser.equals("descent")) {
+            root = descent(tokens, counters).Goal();
+        }
+        else {
+            MiniJavaParser parser = new MiniJavaParser(tokens);
+            parser.memo = memo;
+            parser.counters = counters;
+            root = parser.Goal();
+        }
+        profile.end();
+        return root;
+    }
+
+    // With DescentParser, over the same token managers as FrontEnd's, but made for every file.
+    private Goal parseDescent(JavaCharStream stream, LookaheadCounters counters) throws ParseException {
+        if(pipelined(stream)) {
+            try(PipelinedTokenManager tokens = new PipelinedTokenManager(lexer(stream))){
+                return descent(tokens, counters).Goal();
+            }
+        }
+        return descent(lexer(stream), counters).Goal();
+    }
+
+    private static DescentParser descent(MiniJavaParserTokenManager tokens, LookaheadCounters counters) {
+        DescentParser parser = new DescentParser(tokens);
+        parser.counters = counters;
+        return parser;
+    }
+
+    private static DescentParser descent(TokenBuffer tokens, LookaheadCounters counters) {
+        DescentParser parser = new DescentParser(tokens);
+        parser.counters = counters;
+        return parser;
+    }
+
+    // Mapped files are all big enough.
+    private boolean pipelined(JavaCharStream stream) {
+        if(!this.pipeline) {
+            return false;
+        }
+        if(stream instanceof SourceCharStream) {
+            return ((SourceCharStream) stream).length() >= PipelinedTokenManager.THRESHOLD;
+        }
+        return stream instanceof MappedCharStream;
+    }
+
+    // A token manager like the ones FrontEnd keeps, but of its own.
+    private PooledTokenManager lexer(JavaCharStream stream) {
+        PooledTokenManager lexer = stream instanceof SourceCharStream ? sourceLexer((SourceCharStream) stream) : new PooledTokenManager(stream);
+        lexer.keepComments = this.keepComments;
+        return lexer;
+    }
+
+    private SourceTokenManager sourceLexer(SourceCharStream stream) {
+        return this.lexer.equals("table") ? new TableTokenManager(stream) : new SourceTokenManager(stream);
+    }
+
+    public byte[] outBytes() {
+        this.out.flush();
+        return this.outBuffer.toByteArray();
+    }
+
+    public byte[] errBytes() {
+        this.err.flush();
+        return this.errBuffer.toByteArray();
+    }
+
+    // Write out whatever the task buffered (nothing if it wrote straight to the console).
+    public void flushTo(PrintStream out, PrintStream err) {
+        if(this.outBuffer == null) {
+            return;
+        }
+        this.out.flush();
+        this.err.flush();
+        err.print(this.errBuffer.toString(StandardCharsets.UTF_8));
+        err.flush();
+        out.print(this.outBuffer.toString(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
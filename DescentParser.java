@@ -0,0 +1,488 @@
+import syntaxtree.*;
+
+/**
+ * A hand-written recursive-descent parser for MiniJava, in place of the generated
+ * MiniJavaParser. It builds the same syntaxtree, node for node, so the visitors can't tell
+ * which one parsed a file.
+ *
+ * It decides on one token. Where the grammar looks further ahead (LOOKAHEAD(2) and (3) in
+ * minijava.jj), the part the alternatives share is parsed once and the token after it
+ * decides: "class" Identifier, then "extends" or not; "int", then "[" or not; an Identifier
+ * that starts a statement, then "=" or "["; "new", then "int" or not. At the start of a
+ * method body an Identifier followed by another one is a VarDeclaration, by anything else
+ * the first statement.
+ *
+ * Only programs that parse are handled here. On a syntax or lexical error the generated
+ * parser parses the tokens read so far and the rest of the input again, so errors come out
+ * exactly as before, at the cost of parsing a broken file twice.
+ *
+ * Over a TokenBuffer it reads kinds straight from the arrays by index, and the only objects
+ * made for a token are its NodeToken and, the first time a spelling comes up, its image.
+ * On an error the generated parser starts over on the buffer (see BufferTokenManager).
+ */
+public class DescentParser implements MiniJavaParserConstants {
+    // Thrown on a syntax error, the generated parser takes over. Made once, it has no stack trace.
+    private static final RuntimeException MISMATCH = new RuntimeException("mismatch", null, false, false) {};
+
+    private final MiniJavaParserTokenManager source;
+    // The first token read, and the last one consumed. Tokens are linked through next as they're read.
+    private final Token first;
+    private Token token;
+    private TokenMgrError error = null;
+
+    // Or the tokens lexed beforehand, and the index of the next one.
+    private final TokenBuffer buffer;
+    private int index = 0;
+    private SymbolPool pool;
+    // Where a buffered token's image and positions are put together for its NodeToken.
+    private Token slice;
+
+    // Passed on to the generated parser if it takes over, this parser doesn't look ahead.
+    public LookaheadCounters counters = null;
+
+    public DescentParser(MiniJavaParserTokenManager source) {
+        this.source = source;
+        this.first = new Token();
+        this.token = this.first;
+        this.buffer = null;
+    }
+
+    public DescentParser(TokenBuffer buffer) {
+        this.source = null;
+        this.first = null;
+        this.buffer = buffer;
+        this.pool = new SymbolPool();
+        this.slice = new Token();
+    }
+
+    public Goal Goal() throws ParseException {
+        try{
+            return goal();
+        }
+        catch(TokenMgrError ex){
+            this.error = ex;
+        }
+        catch(RuntimeException ex){
+            if(ex != MISMATCH) {
+                throw ex;
+            }
+        }
+        MiniJavaParser parser = new MiniJavaParser(this.buffer != null ? new BufferTokenManager(this.buffer) : new Resume());
+        parser.counters = this.counters;
+        return parser.Goal();
+    }
+
+    // The tokens read so far, then the rest of the input, or the lexical error that stopped it.
+    private class Resume extends MiniJavaParserTokenManager {
+        private boolean started = false;
+
+        Resume() {
+            super((JavaCharStream) null);
+        }
+
+        @Override
+        public Token getNextToken() {
+            if(!this.started) {
+                this.started = true;
+                if(DescentParser.this.first.next != null) {
+                    // The parser follows next from there on, and only asks again after the last one.
+                    return DescentParser.this.first.next;
+                }
+            }
+            if(DescentParser.this.error != null) {
+                throw DescentParser.this.error;
+            }
+            return DescentParser.this.source.getNextToken();
+        }
+    }
+
+    private int peek() {
+        if(this.buffer != null) {
+            if(this.index == this.buffer.size) {
+                // Lexing stopped here, the generated parser throws what the lexer did.
+                throw MISMATCH;
+            }
+            return this.buffer.kinds[this.index];
+        }
+        Token next = this.token.next;
+        if(next == null) {
+            next = this.token.next = this.source.getNextToken();
+        }
+        return next.kind;
+    }
+
+    private Token consume(int kind) {
+        if(peek() != kind) {
+            throw MISMATCH;
+        }
+        return this.token = this.token.next;
+    }
+
+    private NodeToken nodeToken(int kind) {
+        if(this.buffer != null) {
+            return nodeToken(slice(kind));
+        }
+        return nodeToken(consume(kind));
+    }
+
+    // Consumes the next buffered token like consume, into slice, with what SourceTokenManager would have given it.
+    private Token slice(int kind) {
+        if(peek() != kind) {
+            throw MISMATCH;
+        }
+        TokenBuffer buffer = this.buffer;
+        SourceCharStream source = buffer.source;
+        int i = this.index++;
+        Token t = this.slice;
+        t.kind = kind;
+        if(kind == EOF) {
+            source.selectEof();
+        }
+        else {
+            source.select(buffer.starts[i], buffer.ends[i] - 1);
+        }
+        String image = MiniJavaParserTokenManager.jjstrLiteralImages[kind];
+        t.image = image != null ? image : source.GetImage(this.pool);
+        source.positions(t);
+        return t;
+    }
+
+    // What the generated parser's JTBToolkit.makeNodeToken makes.
+    private static NodeToken nodeToken(Token t) {
+        return new NodeToken(t.image, t.kind, t.beginLine, t.beginColumn, t.endLine, t.endColumn);
+    }
+
+    private Goal goal() {
+        MainClass n0 = mainClass();
+        NodeListOptional n1 = new NodeListOptional();
+        while(peek() == CLASS) {
+            n1.addNode(typeDeclaration());
+        }
+        n1.nodes.trimToSize();
+        NodeToken n4 = nodeToken(EOF);
+        // As the grammar's action does.
+        n4.beginColumn++;
+        n4.endColumn++;
+        return new Goal(n0, n1, n4);
+    }
+
+    private MainClass mainClass() {
+        NodeToken n0 = nodeToken(CLASS);
+        Identifier n2 = identifier();
+        NodeToken n3 = nodeToken(LBRACE);
+        NodeToken n5 = nodeToken(PUBLIC);
+        NodeToken n7 = nodeToken(STATIC);
+        NodeToken n9 = nodeToken(VOID);
+        NodeToken n11 = nodeToken(MAIN);
+        NodeToken n13 = nodeToken(LPAREN);
+        NodeToken n15 = nodeToken(STRING);
+        NodeToken n17 = nodeToken(LSQPAREN);
+        NodeToken n19 = nodeToken(RSQPAREN);
+        Identifier n21 = identifier();
+        NodeToken n22 = nodeToken(RPAREN);
+        NodeToken n24 = nodeToken(LBRACE);
+        NodeListOptional n26 = new NodeListOptional();
+        NodeListOptional n28 = new NodeListOptional();
+        body(n26, n28);
+        NodeToken n30 = nodeToken(RBRACE);
+        NodeToken n32 = nodeToken(RBRACE);
+        return new MainClass(n0, n2, n3, n5, n7, n9, n11, n13, n15, n17, n19, n21, n22, n24, n26, n28, n30, n32);
+    }
+
+    /**
+     * The VarDeclarations and then the Statements of a method body. An Identifier could start
+     * either, it's read first and the token after it decides.
+     */
+    private void body(NodeListOptional vars, NodeListOptional statements) {
+        while(true) {
+            int kind = peek();
+            if(kind == INTEGER || kind == BOOLEAN) {
+                vars.addNode(varDeclaration(type()));
+                continue;
+            }
+            if(kind == IDENTIFIER) {
+                Identifier name = identifier();
+                if(peek() == IDENTIFIER) {
+                    vars.addNode(varDeclaration(new Type(new NodeChoice(name, 3))));
+                    continue;
+                }
+                vars.nodes.trimToSize();
+                statements.addNode(new Statement(assignment(name)));
+            }
+            else {
+                vars.nodes.trimToSize();
+            }
+            break;
+        }
+        statements(statements);
+    }
+
+    private void statements(NodeListOptional statements) {
+        while(true) {
+            int kind = peek();
+            if(kind != LBRACE && kind != IF && kind != WHILE && kind != PRINT && kind != IDENTIFIER) {
+                break;
+            }
+            statements.addNode(statement());
+        }
+        statements.nodes.trimToSize();
+    }
+
+    private TypeDeclaration typeDeclaration() {
+        NodeToken n0 = nodeToken(CLASS);
+        Identifier n2 = identifier();
+        if(peek() != EXTENDS) {
+            NodeToken n3 = nodeToken(LBRACE);
+            NodeListOptional n5 = classVars();
+            NodeListOptional n7 = methods();
+            NodeToken n9 = nodeToken(RBRACE);
+            return new TypeDeclaration(new NodeChoice(new ClassDeclaration(n0, n2, n3, n5, n7, n9), 0));
+        }
+        NodeToken n3 = nodeToken(EXTENDS);
+        Identifier n5 = identifier();
+        NodeToken n6 = nodeToken(LBRACE);
+        NodeListOptional n8 = classVars();
+        NodeListOptional n10 = methods();
+        NodeToken n12 = nodeToken(RBRACE);
+        return new TypeDeclaration(new NodeChoice(new ClassExtendsDeclaration(n0, n2, n3, n5, n6, n8, n10, n12), 1));
+    }
+
+    private NodeListOptional classVars() {
+        NodeListOptional vars = new NodeListOptional();
+        while(true) {
+            int kind = peek();
+            if(kind != BOOLEAN && kind != INTEGER && kind != IDENTIFIER) {
+                break;
+            }
+            vars.addNode(varDeclaration(type()));
+        }
+        vars.nodes.trimToSize();
+        return vars;
+    }
+
+    private NodeListOptional methods() {
+        NodeListOptional methods = new NodeListOptional();
+        while(peek() == PUBLIC) {
+            methods.addNode(methodDeclaration());
+        }
+        methods.nodes.trimToSize();
+        return methods;
+    }
+
+    private VarDeclaration varDeclaration(Type type) {
+        Identifier n1 = identifier();
+        NodeToken n2 = nodeToken(SEMICOLON);
+        return new VarDeclaration(type, n1, n2);
+    }
+
+    private MethodDeclaration methodDeclaration() {
+        NodeToken n0 = nodeToken(PUBLIC);
+        Type n2 = type();
+        Identifier n3 = identifier();
+        NodeToken n4 = nodeToken(LPAREN);
+        NodeOptional n6 = new NodeOptional();
+        int kind = peek();
+        if(kind == BOOLEAN || kind == INTEGER || kind == IDENTIFIER) {
+            FormalParameter first = formalParameter();
+            NodeListOptional rest = new NodeListOptional();
+            while(peek() == COMMA) {
+                NodeToken comma = nodeToken(COMMA);
+                rest.addNode(new FormalParameterTerm(comma, formalParameter()));
+            }
+            rest.nodes.trimToSize();
+            n6.addNode(new FormalParameterList(first, new FormalParameterTail(rest)));
+        }
+        NodeToken n8 = nodeToken(RPAREN);
+        NodeToken n10 = nodeToken(LBRACE);
+        NodeListOptional n12 = new NodeListOptional();
+        NodeListOptional n14 = new NodeListOptional();
+        body(n12, n14);
+        NodeToken n16 = nodeToken(RETURN);
+        Expression n18 = expression();
+        NodeToken n19 = nodeToken(SEMICOLON);
+        NodeToken n21 = nodeToken(RBRACE);
+        return new MethodDeclaration(n0, n2, n3, n4, n6, n8, n10, n12, n14, n16, n18, n19, n21);
+    }
+
+    private FormalParameter formalParameter() {
+        Type n0 = type();
+        return new FormalParameter(n0, identifier());
+    }
+
+    private Type type() {
+        switch(peek()) {
+            case INTEGER:
+                NodeToken n0 = nodeToken(INTEGER);
+                if(peek() != LSQPAREN) {
+                    return new Type(new NodeChoice(new IntegerType(n0), 2));
+                }
+                NodeToken n2 = nodeToken(LSQPAREN);
+                NodeToken n4 = nodeToken(RSQPAREN);
+                return new Type(new NodeChoice(new ArrayType(n0, n2, n4), 0));
+            case BOOLEAN:
+                return new Type(new NodeChoice(new BooleanType(nodeToken(BOOLEAN)), 1));
+            case IDENTIFIER:
+                return new Type(new NodeChoice(identifier(), 3));
+            default:
+                throw MISMATCH;
+        }
+    }
+
+    private Statement statement() {
+        switch(peek()) {
+            case LBRACE: {
+                NodeToken n0 = nodeToken(LBRACE);
+                NodeListOptional n2 = new NodeListOptional();
+                statements(n2);
+                NodeToken n4 = nodeToken(RBRACE);
+                return new Statement(new NodeChoice(new Block(n0, n2, n4), 0));
+            }
+            case IDENTIFIER:
+                return new Statement(assignment(identifier()));
+            case IF: {
+                NodeToken n0 = nodeToken(IF);
+                NodeToken n2 = nodeToken(LPAREN);
+                Expression n4 = expression();
+                NodeToken n5 = nodeToken(RPAREN);
+                Statement n7 = statement();
+                NodeToken n8 = nodeToken(ELSE);
+                Statement n10 = statement();
+                return new Statement(new NodeChoice(new IfStatement(n0, n2, n4, n5, n7, n8, n10), 3));
+            }
+            case WHILE: {
+                NodeToken n0 = nodeToken(WHILE);
+                NodeToken n2 = nodeToken(LPAREN);
+                Expression n4 = expression();
+                NodeToken n5 = nodeToken(RPAREN);
+                Statement n7 = statement();
+                return new Statement(new NodeChoice(new WhileStatement(n0, n2, n4, n5, n7), 4));
+            }
+            case PRINT: {
+                NodeToken n0 = nodeToken(PRINT);
+                NodeToken n2 = nodeToken(LPAREN);
+                Expression n4 = expression();
+                NodeToken n5 = nodeToken(RPAREN);
+                NodeToken n7 = nodeToken(SEMICOLON);
+                return new Statement(new NodeChoice(new PrintStatement(n0, n2, n4, n5, n7), 5));
+            }
+            default:
+                throw MISMATCH;
+        }
+    }
+
+    // The rest of an AssignmentStatement or an ArrayAssignmentStatement, after its Identifier.
+    private NodeChoice assignment(Identifier n0) {
+        if(peek() == ASSIGN) {
+            NodeToken n1 = nodeToken(ASSIGN);
+            Expression n3 = expression();
+            NodeToken n4 = nodeToken(SEMICOLON);
+            return new NodeChoice(new AssignmentStatement(n0, n1, n3, n4), 1);
+        }
+        NodeToken n1 = nodeToken(LSQPAREN);
+        Expression n3 = expression();
+        NodeToken n4 = nodeToken(RSQPAREN);
+        NodeToken n6 = nodeToken(ASSIGN);
+        Expression n8 = expression();
+        NodeToken n9 = nodeToken(SEMICOLON);
+        return new NodeChoice(new ArrayAssignmentStatement(n0, n1, n3, n4, n6, n8, n9), 2);
+    }
+
+    private Expression expression() {
+        PrimaryExpression n1 = primaryExpression();
+        switch(peek()) {
+            case AND:
+                return new Expression(new NodeChoice(new AndExpression(n1, nodeToken(AND), primaryExpression()), 0));
+            case LT:
+                return new Expression(new NodeChoice(new CompareExpression(n1, nodeToken(LT), primaryExpression()), 1));
+            case PLUS:
+                return new Expression(new NodeChoice(new PlusExpression(n1, nodeToken(PLUS), primaryExpression()), 2));
+            case MINUS:
+                return new Expression(new NodeChoice(new MinusExpression(n1, nodeToken(MINUS), primaryExpression()), 3));
+            case TIMES:
+                return new Expression(new NodeChoice(new TimesExpression(n1, nodeToken(TIMES), primaryExpression()), 4));
+            case LSQPAREN: {
+                NodeToken n2 = nodeToken(LSQPAREN);
+                PrimaryExpression n3 = primaryExpression();
+                NodeToken n4 = nodeToken(RSQPAREN);
+                return new Expression(new NodeChoice(new ArrayLookup(n1, n2, n3, n4), 5));
+            }
+            case DOT: {
+                NodeToken n2 = nodeToken(DOT);
+                if(peek() == LENGTH) {
+                    return new Expression(new NodeChoice(new ArrayLength(n1, n2, nodeToken(LENGTH)), 6));
+                }
+                Identifier n5 = identifier();
+                NodeToken n6 = nodeToken(LPAREN);
+                NodeOptional n7 = new NodeOptional();
+                int kind = peek();
+                if(kind == LPAREN || kind == NOT || kind == FALSE || kind == NEW || kind == THIS || kind == TRUE
+                        || kind == INTEGER_LITERAL || kind == IDENTIFIER) {
+                    n7.addNode(expressionList());
+                }
+                NodeToken n9 = nodeToken(RPAREN);
+                return new Expression(new NodeChoice(new MessageSend(n1, n2, n5, n6, n7, n9), 7));
+            }
+            default:
+                return new Expression(new NodeChoice(n1, 8));
+        }
+    }
+
+    private ExpressionList expressionList() {
+        Expression n0 = expression();
+        NodeListOptional rest = new NodeListOptional();
+        while(peek() == COMMA) {
+            NodeToken comma = nodeToken(COMMA);
+            rest.addNode(new ExpressionTerm(comma, expression()));
+        }
+        rest.nodes.trimToSize();
+        return new ExpressionList(n0, new ExpressionTail(rest));
+    }
+
+    private PrimaryExpression primaryExpression() {
+        switch(peek()) {
+            case INTEGER_LITERAL: {
+                Token n1 = this.buffer != null ? slice(INTEGER_LITERAL) : consume(INTEGER_LITERAL);
+                int value = this.buffer != null ? MiniJavaParserTokenManager.literalValue(n1) : n1.value;
+                return new PrimaryExpression(new NodeChoice(new IntegerLiteral(nodeToken(n1), value), 0));
+            }
+            case TRUE:
+                return new PrimaryExpression(new NodeChoice(new TrueLiteral(nodeToken(TRUE)), 1));
+            case FALSE:
+                return new PrimaryExpression(new NodeChoice(new FalseLiteral(nodeToken(FALSE)), 2));
+            case IDENTIFIER:
+                return new PrimaryExpression(new NodeChoice(identifier(), 3));
+            case THIS:
+                return new PrimaryExpression(new NodeChoice(new ThisExpression(nodeToken(THIS)), 4));
+            case NEW: {
+                NodeToken n0 = nodeToken(NEW);
+                if(peek() == INTEGER) {
+                    NodeToken n2 = nodeToken(INTEGER);
+                    NodeToken n4 = nodeToken(LSQPAREN);
+                    Expression n6 = expression();
+                    NodeToken n7 = nodeToken(RSQPAREN);
+                    return new PrimaryExpression(new NodeChoice(new ArrayAllocationExpression(n0, n2, n4, n6, n7), 5));
+                }
+                Identifier n2 = identifier();
+                NodeToken n3 = nodeToken(LPAREN);
+                NodeToken n5 = nodeToken(RPAREN);
+                return new PrimaryExpression(new NodeChoice(new AllocationExpression(n0, n2, n3, n5), 6));
+            }
+            case NOT: {
+                NodeToken n0 = nodeToken(NOT);
+                return new PrimaryExpression(new NodeChoice(new NotExpression(n0, primaryExpression()), 7));
+            }
+            case LPAREN: {
+                NodeToken n0 = nodeToken(LPAREN);
+                Expression n2 = expression();
+                NodeToken n3 = nodeToken(RPAREN);
+                return new PrimaryExpression(new NodeChoice(new BracketExpression(n0, n2, n3), 8));
+            }
+            default:
+                throw MISMATCH;
+        }
+    }
+
+    private Identifier identifier() {
+        return new Identifier(nodeToken(IDENTIFIER));
+    }
+}
@@ -0,0 +1,101 @@
+import syntaxtree.*;
+
+import java.io.InputStream;
+
+/**
+ * Every thread keeps one parser (with its token manager and char stream) and resets
+ * it for each file, instead of allocating the whole stack and its buffers per file.
+ * Token managers are PooledTokenManagers, with a new SymbolPool for every file.
+ * keepComments is passed on to them, see PooledTokenManager, and memo and counters to
+ * the parser (null for none, see LookaheadMemo and LookaheadCounters).
+ */
+public class FrontEnd {
+    private static final ThreadLocal<MiniJavaParser> parsers = new ThreadLocal<>();
+    private static final ThreadLocal<MiniJavaParser> sourceParsers = new ThreadLocal<>();
+    private static final ThreadLocal<MiniJavaParser> tableParsers = new ThreadLocal<>();
+
+    public static Goal parse(InputStream in, boolean keepComments, LookaheadMemo memo, LookaheadCounters counters) throws ParseException {
+        MiniJavaParser parser = parsers.get();
+        if(parser == null) {
+            parser = newParser(in);
+            parsers.set(parser);
+        }
+        else {
+            parser.reset(in);
+        }
+        keepComments(parser, keepComments);
+        parser.memo = memo;
+        parser.counters = counters;
+        return parser.Goal();
+    }
+
+    public static Goal parse(JavaCharStream stream, boolean keepComments, LookaheadMemo memo, LookaheadCounters counters) throws ParseException {
+        MiniJavaParser parser = parsers.get();
+        if(parser == null) {
+            // Its own stream is only used by reset(InputStream), so it starts out empty.
+            parser = newParser(InputStream.nullInputStream());
+            parsers.set(parser);
+        }
+        parser.reset(stream);
+        keepComments(parser, keepComments);
+        parser.memo = memo;
+        parser.counters = counters;
+        return parser.Goal();
+    }
+
+    // The parser's own stream, but with a PooledTokenManager over it.
+    private static MiniJavaParser newParser(InputStream in) {
+        MiniJavaParser parser = new MiniJavaParser(in);
+        parser.ReInit(new PooledTokenManager(parser.jj_input_stream));
+        return parser;
+    }
+
+    // Whole-file sources get a parser of their own, with a SourceTokenManager.
+    public static Goal parse(SourceCharStream stream, boolean keepComments, LookaheadMemo memo, LookaheadCounters counters) throws ParseException {
+        MiniJavaParser parser = sourceParsers.get();
+        if(parser == null) {
+            parser = new MiniJavaParser(new SourceTokenManager(stream));
+            sourceParsers.set(parser);
+        }
+        else {
+            parser.reset(stream);
+        }
+        keepComments(parser, keepComments);
+        parser.memo = memo;
+        parser.counters = counters;
+        return parser.Goal();
+    }
+
+    // Tokens from a lexer thread, for big files only: the parser isn't kept. Stops the thread whatever happens.
+    public static Goal parse(PipelinedTokenManager tokens, LookaheadMemo memo, LookaheadCounters counters) throws ParseException {
+        try{
+            MiniJavaParser parser = new MiniJavaParser(tokens);
+            parser.memo = memo;
+            parser.counters = counters;
+            return parser.Goal();
+        }
+        finally{
+            tokens.close();
+        }
+    }
+
+    // The same, lexed with a TableTokenManager.
+    public static Goal parseTable(SourceCharStream stream, boolean keepComments, LookaheadMemo memo, LookaheadCounters counters) throws ParseException {
+        MiniJavaParser parser = tableParsers.get();
+        if(parser == null) {
+            parser = new MiniJavaParser(new TableTokenManager(stream));
+            tableParsers.set(parser);
+        }
+        else {
+            parser.reset(stream);
+        }
+        keepComments(parser, keepComments);
+        parser.memo = memo;
+        parser.counters = counters;
+        return parser.Goal();
+    }
+
+    private static void keepComments(MiniJavaParser parser, boolean keep) {
+        ((PooledTokenManager) parser.token_source).keepComments = keep;
+    }
+}
@@ -0,0 +1,106 @@
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs many CompileTasks at once without holding more of them in memory than Admission allows.
+ *
+ * Files are waited for and read on reader threads (virtual threads where the JVM has them),
+ * and checked on a fixed pool of jobs workers, so every worker keeps its FrontEnd parser.
+ */
+public class Ingest {
+    private final ExecutorService readers;
+    private final ExecutorService workers;
+    private final Admission admission;
+
+    public Ingest(int jobs, Admission admission) {
+        this.readers = readers(jobs);
+        this.workers = Executors.newFixedThreadPool(jobs);
+        this.admission = admission;
+    }
+
+    // Virtual threads came in JDK 21, look them up so we still run on older JVMs.
+    private static ExecutorService readers(int jobs) {
+        try{
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        }
+        catch(ReflectiveOperationException ex){
+            return Executors.newFixedThreadPool(jobs);
+        }
+    }
+
+    /**
+     * Check the task once there's room for it. A task that already has its source is
+     * admitted on the calling thread, so whoever is producing sources waits with it.
+     */
+    public CompletableFuture<CompileTask> submit(CompileTask task) throws InterruptedException {
+        CompletableFuture<Long> admitted;
+        if(task.source != null) {
+            long cost = Admission.cost(task.source.length);
+            this.admission.acquire(cost);
+            admitted = CompletableFuture.completedFuture(cost);
+        }
+        else {
+            admitted = CompletableFuture.supplyAsync(() -> read(task), this.readers);
+        }
+        return admitted.thenApplyAsync(cost -> check(task, cost), this.workers);
+    }
+
+    private long read(CompileTask task) {
+        long cost;
+        try{
+            cost = Admission.cost(Files.size(Paths.get(task.fileName)));
+        }
+        catch(IOException ex){
+            // call() will find out again and report it.
+            cost = 0;
+        }
+        try{
+            this.admission.acquire(cost);
+        }
+        catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            throw new CompletionException(ex);
+        }
+        if(cost >= Admission.cost(MappedCharStream.THRESHOLD)) {
+            // call() maps big files itself.
+            return cost;
+        }
+        try{
+            task.source = Files.readAllBytes(Paths.get(task.fileName));
+        }
+        catch(IOException ex){
+            // Same as above, leave the reading (and the error) to call().
+        }
+        catch(RuntimeException ex){
+            this.admission.release(cost);
+            throw ex;
+        }
+        return cost;
+    }
+
+    private CompileTask check(CompileTask task, long cost) {
+        try{
+            return task.call();
+        }
+        catch(Exception ex){
+            throw new CompletionException(ex);
+        }
+        finally{
+            // Drop the source now, the output may wait a while to be printed.
+            task.source = null;
+            this.admission.release(cost);
+        }
+    }
+
+    public void shutdown() {
+        this.readers.shutdownNow();
+        this.workers.shutdownNow();
+    }
+}
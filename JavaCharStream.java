@@ -426,14 +426,16 @@ class JavaCharStream
     line = startline;
     column = startcolumn - 1;
 
-    if (buffer == null || buffersize != buffer.length)
+    // Keep the buffers of the last file if they're big enough, they only ever grow.
+    if (buffer == null || buffersize > buffer.length)
     {
-      available = bufsize = buffersize;
+      bufsize = buffersize;
       buffer = new char[buffersize];
       bufline = new int[buffersize];
       bufcolumn = new int[buffersize];
       nextCharBuf = new char[4096];
     }
+    available = bufsize = buffer.length;
     prevCharIsLF = prevCharIsCR = false;
     tokenBegin = inBuf = maxNextCharInd = 0;
     nextCharInd = bufpos = -1;
@@ -538,6 +540,15 @@ class JavaCharStream
                               new String(buffer, 0, bufpos + 1);
   }
 
+  /** @return token image as the pool's String for it */
+  public String GetImage(SymbolPool pool)
+  {
+    if (bufpos >= tokenBegin)
+      return pool.intern(buffer, tokenBegin, bufpos - tokenBegin + 1);
+    else
+      return pool.intern(GetImage());
+  }
+
   /** @return suffix */
   public char[] GetSuffix(int len)
   {
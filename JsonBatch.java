@@ -0,0 +1,178 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Batch mode for tools: reads programs from a manifest (or stdin) and writes one JSON
+ * object per line for every program, as soon as it's done.
+ *
+ * Manifest format, one entry per line:
+ *   path/to/File.java      a file to check
+ *   :<length> [name]       followed by exactly <length> bytes of program text
+ * Empty lines are skipped.
+ *
+ * With more than one job, lines come out in the order programs finish; "index" is the
+ * position of the program in the manifest. With options.countLookahead, a line has the program's
+ * LookaheadCounters under "lookahead" (not for results from the cache).
+ */
+public class JsonBatch {
+    private final int jobs;
+    private final Admission admission;
+    private final PrintStream out;
+    public CompileOptions options = new CompileOptions();
+    public ProfileReport report = null;
+
+    private boolean failed = false;
+
+    public JsonBatch(int jobs, Admission admission, PrintStream out) {
+        this.jobs = jobs;
+        this.admission = admission;
+        this.out = out;
+    }
+
+    // Returns true if every program checked OK.
+    public boolean run(InputStream manifest) throws IOException, InterruptedException {
+        Ingest ingest = this.jobs > 1 ? new Ingest(this.jobs, this.admission) : null;
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        int index = 0;
+        String line;
+        while((line = readLine(manifest)) != null) {
+            if(line.isEmpty()) {
+                continue;
+            }
+
+            CompileTask task;
+            if(line.charAt(0) == ':') {
+                int space = line.indexOf(' ');
+                int length = Integer.parseInt(space < 0 ? line.substring(1) : line.substring(1, space));
+                String name = space < 0 ? "<stdin:" + index + ">" : line.substring(space + 1);
+                byte[] body = manifest.readNBytes(length);
+                if(body.length != length) {
+                    throw new IOException("Manifest ended inside the body of " + name + ".");
+                }
+                task = new CompileTask(name);
+                task.source = body;
+            }
+            else {
+                task = new CompileTask(line);
+            }
+            task.set(this.options);
+            if(this.report != null) task.profile = new PhaseProfile();
+
+            final int position = index++;
+            if(ingest == null) {
+                try{
+                    task.call();
+                }
+                catch(Exception ex){
+                    failed(task, ex);
+                }
+                done(task, position);
+            }
+            else {
+                pending.add(ingest.submit(task).handle((checked, ex) -> {
+                    if(ex != null) failed(task, ex);
+                    done(task, position);
+                    return null;
+                }));
+            }
+        }
+
+        if(ingest != null) {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+            ingest.shutdown();
+        }
+        return !this.failed;
+    }
+
+    // call() keeps its own failures, this is only for what gets past it.
+    private static void failed(CompileTask task, Throwable ex) {
+        task.outcome = Outcome.INTERNAL_ERROR;
+        task.diagnostic = "internal error: " + ex;
+    }
+
+    private void done(CompileTask task, int index) {
+        if(this.report != null) this.report.add(task);
+        emit(task, index);
+    }
+
+    private synchronized void emit(CompileTask task, int index) {
+        this.failed |= task.outcome != Outcome.OK;
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"index\":").append(index);
+        json.append(",\"file\":").append(quote(task.fileName));
+        json.append(",\"outcome\":").append(quote(task.outcome.toString()));
+        json.append(",\"diagnostics\":[");
+        if(task.diagnostic != null) {
+            json.append(quote(task.diagnostic));
+        }
+        json.append("]");
+        json.append(",\"cached\":").append(task.cached);
+        json.append(",\"timings\":{");
+        json.append("\"parse_ms\":").append(millis(task.parseTime));
+        json.append(",\"decl_ms\":").append(millis(task.declTime));
+        json.append(",\"typecheck_ms\":").append(millis(task.typeCheckTime));
+        json.append("}");
+        if(task.lookahead != null) {
+            json.append(",\"lookahead\":").append(task.lookahead.toJson());
+        }
+        json.append(",\"output\":").append(quote(new String(task.outBytes(), StandardCharsets.UTF_8)));
+        json.append("}");
+
+        this.out.println(json);
+        this.out.flush();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    public static String quote(String s) {
+        StringBuilder quoted = new StringBuilder(s.length() + 2);
+        quoted.append('"');
+        for(int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch(c) {
+                case '"':  quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if(c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        quoted.append('"');
+        return quoted.toString();
+    }
+
+    // Reads one line as UTF-8 without reading ahead, so program bodies can follow it.
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c = in.read();
+        if(c == -1) {
+            return null;
+        }
+        while(c != -1 && c != '\n') {
+            line.write(c);
+            c = in.read();
+        }
+        String text = new String(line.toByteArray(), StandardCharsets.UTF_8);
+        if(text.endsWith("\r")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        return text;
+    }
+}
@@ -0,0 +1,113 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One JSON object per file instead of the text dumps:
+ *   {"classes":[{"name","parent","fields":[{"name","type","offset"}],
+ *                "methods":[{"name","type","offset","params":[..],"vars":[..]}]}],
+ *    "checked":[method names],"mismatches":[{"expected","found"}],
+ *    "outcome":..,"error":..}
+ * "classes" is missing if the file didn't get as far as DeclVisitor.
+ */
+public class JsonReport implements Report {
+    private final PrintStream out;
+    private String classes = null;
+    private final List<String> checked = new ArrayList<>();
+    private final List<String> mismatches = new ArrayList<>();
+    private Outcome outcome = Outcome.OK;
+    private String error = null;
+
+    public JsonReport(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void parsed() {
+    }
+
+    @Override
+    public void tables(SymbolTable table) {
+        StringBuilder json = new StringBuilder("[");
+        for (Map.Entry<String, ClassSymbolTable> entry : table.table.entrySet()) {
+            ClassSymbolTable current = entry.getValue();
+            if(json.length() > 1) json.append(',');
+            json.append("{\"name\":").append(JsonBatch.quote(entry.getKey()));
+            json.append(",\"parent\":").append(current.parent == null ? "null" : JsonBatch.quote(current.parent));
+
+            json.append(",\"fields\":[");
+            Map<String, Integer> offsets = current.fieldOffsets(table.table);
+            boolean first = true;
+            for (Map.Entry<String, String> field : current.fields.entrySet()) {
+                if(!first) json.append(',');
+                first = false;
+                json.append("{\"name\":").append(JsonBatch.quote(field.getKey()));
+                json.append(",\"type\":").append(JsonBatch.quote(field.getValue()));
+                json.append(",\"offset\":").append(offsets.get(field.getKey())).append('}');
+            }
+
+            json.append("],\"methods\":[");
+            offsets = current.methodOffsets(table.table);
+            first = true;
+            for (Map.Entry<String, MethodSymbolTable> method : current.methods.entrySet()) {
+                if(!first) json.append(',');
+                first = false;
+                json.append("{\"name\":").append(JsonBatch.quote(method.getKey()));
+                json.append(",\"type\":").append(JsonBatch.quote(method.getValue().type));
+                json.append(",\"offset\":").append(offsets.get(method.getKey()));
+                json.append(",\"params\":");
+                variables(json, method.getValue().params);
+                json.append(",\"vars\":");
+                variables(json, method.getValue().vars);
+                json.append('}');
+            }
+            json.append("]}");
+        }
+        this.classes = json.append(']').toString();
+    }
+
+    private static void variables(StringBuilder json, Map<String, String> variables) {
+        json.append('[');
+        boolean first = true;
+        for (Map.Entry<String, String> entry : variables.entrySet()) {
+            if(!first) json.append(',');
+            first = false;
+            json.append("{\"name\":").append(JsonBatch.quote(entry.getKey()));
+            json.append(",\"type\":").append(JsonBatch.quote(entry.getValue())).append('}');
+        }
+        json.append(']');
+    }
+
+    @Override
+    public void methodChecked(String name) {
+        this.checked.add(JsonBatch.quote(name));
+    }
+
+    @Override
+    public void mismatch(String expected, String found) {
+        this.mismatches.add("{\"expected\":" + JsonBatch.quote(String.valueOf(expected))
+            + ",\"found\":" + JsonBatch.quote(String.valueOf(found)) + "}");
+    }
+
+    @Override
+    public void error(Outcome outcome, String message) {
+        this.outcome = outcome;
+        this.error = message;
+    }
+
+    @Override
+    public void flush() {
+        StringBuilder json = new StringBuilder("{");
+        if(this.classes != null) {
+            json.append("\"classes\":").append(this.classes).append(',');
+        }
+        json.append("\"checked\":[").append(String.join(",", this.checked)).append(']');
+        json.append(",\"mismatches\":[").append(String.join(",", this.mismatches)).append(']');
+        json.append(",\"outcome\":").append(JsonBatch.quote(this.outcome.toString()));
+        json.append(",\"error\":").append(this.error == null ? "null" : JsonBatch.quote(this.error));
+        json.append('}');
+        this.out.println(json);
+        this.out.flush();
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Counts the work MiniJavaParser's syntactic lookahead does on a file, by the production the
+ * LOOKAHEAD is in: how often it was tried (the jj_2_N calls), how many tokens its scans moved
+ * over (jj_scan_token), how many tokens a LookaheadMemo hit stood in for, how often
+ * jj_rescan_token ran it again for an error message and how many tokens that scanned, and how
+ * often it matched far enough to stop early (LookaheadSuccess thrown).
+ *
+ * The parser calls in through hooks the Makefile puts in the generated code. Lookaheads are
+ * numbered like the generated jj_2_N routines, and the Makefile works out which production
+ * each one is in (MiniJavaParser.jj_2_productions).
+ */
+public class LookaheadCounters {
+    static final String[] PRODUCTIONS = MiniJavaParser.jj_2_productions;
+
+    public final long[] calls = new long[PRODUCTIONS.length];
+    public final long[] tokens = new long[PRODUCTIONS.length];
+    public final long[] memoTokens = new long[PRODUCTIONS.length];
+    public final long[] rescans = new long[PRODUCTIONS.length];
+    public final long[] rescanTokens = new long[PRODUCTIONS.length];
+    public final long[] successes = new long[PRODUCTIONS.length];
+
+    // The lookahead that is scanning now, and whether for an error message.
+    private int current = 0;
+    private boolean rescanning = false;
+
+    void call(int lookahead) {
+        this.current = lookahead;
+        this.rescanning = false;
+        this.calls[lookahead]++;
+    }
+
+    void rescan(int lookahead) {
+        this.current = lookahead;
+        this.rescanning = true;
+        this.rescans[lookahead]++;
+    }
+
+    void scanned() {
+        if(this.rescanning) {
+            this.rescanTokens[this.current]++;
+        }
+        else {
+            this.tokens[this.current]++;
+        }
+    }
+
+    // A memoized scan that didn't have to run: it had looked at count tokens.
+    void memoized(int count) {
+        this.memoTokens[this.current] += count;
+    }
+
+    void succeeded() {
+        this.successes[this.current]++;
+    }
+
+    /**
+     * The counts by production, as a JSON object, e.g.
+     * {"Statement":{"calls":12,"tokens":20,"memoTokens":0,"rescans":0,"rescanTokens":0,"successes":7}}.
+     * Productions whose lookahead never ran are left out.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        java.util.Map<String, long[]> counts = byProduction();
+        for(java.util.Map.Entry<String, long[]> entry : counts.entrySet()) {
+            long[] count = entry.getValue();
+            if(json.length() > 1) {
+                json.append(",");
+            }
+            json.append(JsonBatch.quote(entry.getKey()));
+            json.append(":{\"calls\":").append(count[0]);
+            json.append(",\"tokens\":").append(count[1]);
+            json.append(",\"memoTokens\":").append(count[2]);
+            json.append(",\"rescans\":").append(count[3]);
+            json.append(",\"rescanTokens\":").append(count[4]);
+            json.append(",\"successes\":").append(count[5]).append("}");
+        }
+        return json.append("}").toString();
+    }
+
+    // In grammar order, productions with more than one lookahead summed up.
+    private java.util.Map<String, long[]> byProduction() {
+        java.util.Map<String, long[]> counts = new java.util.LinkedHashMap<>();
+        for(int lookahead = 1; lookahead < PRODUCTIONS.length; lookahead++) {
+            if(this.calls[lookahead] == 0 && this.rescans[lookahead] == 0) {
+                continue;
+            }
+            long[] count = counts.computeIfAbsent(PRODUCTIONS[lookahead], production -> new long[6]);
+            count[0] += this.calls[lookahead];
+            count[1] += this.tokens[lookahead];
+            count[2] += this.memoTokens[lookahead];
+            count[3] += this.rescans[lookahead];
+            count[4] += this.rescanTokens[lookahead];
+            count[5] += this.successes[lookahead];
+        }
+        return counts;
+    }
+}
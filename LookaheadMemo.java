@@ -0,0 +1,85 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A packrat memo for MiniJavaParser's lookahead scans: for a jj_3R routine a LOOKAHEAD starts
+ * with and the token it started after, whether it matched, the token it got to and the furthest
+ * token it looked at. Scanning the same routine from the same token again (another LOOKAHEAD over
+ * the same tokens, or a choice point backing up) is a lookup then, so no lookahead scans a stretch
+ * of tokens twice. The routines those call aren't kept: every LOOKAHEAD in the grammar stops after
+ * two or three tokens, so a scan inside one never gets far enough to be worth an entry.
+ *
+ * Tokens are numbered by the parser (Token.index) while a memo is set. Entries go in a fixed
+ * table by routine and token index and just overwrite what was there: an entry is only wanted
+ * again a few tokens later. They know their first token, so one memo can serve every file a
+ * thread parses; clear it after each one, or the table keeps that file's tokens alive. See
+ * MiniJavaParser.jj_memoized for how the parser uses them.
+ */
+public class LookaheadMemo {
+    private static final int SLOTS = 1 << 12;
+
+    private static final ThreadLocal<LookaheadMemo> memos = ThreadLocal.withInitial(LookaheadMemo::new);
+
+    // Lookups and hits over every memo, for the summary at the end of a run.
+    private static final LongAdder totalLookups = new LongAdder();
+    private static final LongAdder totalHits = new LongAdder();
+
+    private final Token[] starts = new Token[SLOTS];
+    private final int[] routines = new int[SLOTS];
+    // null if the routine didn't match.
+    private final Token[] ends = new Token[SLOTS];
+    private final Token[] reaches = new Token[SLOTS];
+
+    public long lookups = 0;
+    public long hits = 0;
+
+    // The memo of the current thread.
+    public static LookaheadMemo forThread() {
+        return memos.get();
+    }
+
+    // The slot of routine's entry for start, or -1.
+    int find(Token start, int routine) {
+        this.lookups++;
+        int slot = slot(start, routine);
+        return this.starts[slot] == start && this.routines[slot] == routine ? slot : -1;
+    }
+
+    Token end(int slot) {
+        return this.ends[slot];
+    }
+
+    Token reach(int slot) {
+        return this.reaches[slot];
+    }
+
+    void put(Token start, int routine, Token end, Token reach) {
+        int slot = slot(start, routine);
+        this.starts[slot] = start;
+        this.routines[slot] = routine;
+        this.ends[slot] = end;
+        this.reaches[slot] = reach;
+    }
+
+    // Drops every entry, and with them the tokens they hold.
+    public void clear() {
+        java.util.Arrays.fill(this.starts, null);
+        java.util.Arrays.fill(this.ends, null);
+        java.util.Arrays.fill(this.reaches, null);
+    }
+
+    private static int slot(Token start, int routine) {
+        return (start.index << 6 ^ routine) & (SLOTS - 1);
+    }
+
+    public static void count(long lookups, long hits) {
+        totalLookups.add(lookups);
+        totalHits.add(hits);
+    }
+
+    public static String summary() {
+        long lookups = totalLookups.sum();
+        long hits = totalHits.sum();
+        return String.format(java.util.Locale.ROOT, "lookahead memo: %d lookups, %d hits (%.1f%%)",
+            lookups, hits, lookups == 0 ? 0.0 : 100.0 * hits / lookups);
+    }
+}
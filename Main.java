@@ -1,50 +1,180 @@
-import syntaxtree.*;
-
+import java.io.BufferedInputStream;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class Main {
     public static void main(String[] args) throws Exception {
-        if(args.length == 0){
-            System.err.println("Usage: java Main <inputFile>");
-            System.exit(1);
-        }
+        int jobs = 1;
+        boolean jobsGiven = false;
+        Path server = null;
+        Path client = null;
+        Path cacheDir = null;
+        long cacheMegabytes = 256;
+        String manifest = null;
+        Path profile = null;
+        CompileOptions options = new CompileOptions();
+        Admission admission = new Admission();
+        List<String> files = new ArrayList<>();
         for(int i = 0; i < args.length; i++) {
-            FileInputStream fis = null;
-            try{
-                fis = new FileInputStream(args[i]);
-                MiniJavaParser parser = new MiniJavaParser(fis);
+            if(args[i].equals("--jobs") && i + 1 < args.length) {
+                jobs = Integer.parseInt(args[++i]);
+                jobsGiven = true;
+            }
+            else if(args[i].equals("--server") && i + 1 < args.length) {
+                server = Paths.get(args[++i]);
+            }
+            else if(args[i].equals("--client") && i + 1 < args.length) {
+                client = Paths.get(args[++i]);
+            }
+            else if(args[i].equals("--cache") && i + 1 < args.length) {
+                cacheDir = Paths.get(args[++i]);
+            }
+            else if(args[i].equals("--cache-size") && i + 1 < args.length) {
+                cacheMegabytes = Long.parseLong(args[++i]);
+            }
+            else if(args[i].equals("--profile") && i + 1 < args.length) {
+                profile = Paths.get(args[++i]);
+            }
+            else if(args[i].equals("--max-inflight") && i + 1 < args.length) {
+                admission = new Admission(Long.parseLong(args[++i]) * 1024 * 1024);
+            }
+            else if(args[i].equals("--manifest") && i + 1 < args.length) {
+                manifest = args[++i];
+            }
+            else {
+                int last = -1;
+                try{
+                    last = options.parse(args, i);
+                }
+                catch(IllegalArgumentException ex){
+                    System.err.println(ex.getMessage());
+                    System.exit(1);
+                }
+                if(last < 0) {
+                    files.add(args[i]);
+                }
+                else {
+                    i = last;
+                }
+            }
+        }
 
-                Goal root = parser.Goal();
+        if(cacheDir != null) {
+            options.cache = new ResultCache(cacheDir, cacheMegabytes * 1024 * 1024);
+        }
 
-                System.err.println("Program parsed successfully.");
-                
-                SymbolTable table = new SymbolTable();
-                DeclVisitor eval = new DeclVisitor();
-                root.accept(eval, table);
+        if(server != null) {
+            if(jobsGiven && jobs < 1) {
+                System.err.println("--jobs must be at least 1 for --server.");
+                System.exit(1);
+            }
+            // A thread per core unless told otherwise.
+            CompileServer compileServer = new CompileServer(server, jobsGiven ? jobs : Runtime.getRuntime().availableProcessors());
+            compileServer.cache = options.cache;
+            compileServer.serve();
+            return;
+        }
 
-                table.printTableInfo();
-                table.printTable();
+        if(manifest != null) {
+            // "-" reads the manifest from stdin.
+            InputStream in = new BufferedInputStream(manifest.equals("-") ? System.in : new FileInputStream(manifest));
+            JsonBatch batch = new JsonBatch(jobs, admission, System.out);
+            batch.options = options;
+            if(profile != null) batch.report = new ProfileReport();
+            boolean ok = batch.run(in);
+            if(profile != null) batch.report.write(profile);
+            if(options.memoLookahead) System.err.println(LookaheadMemo.summary());
+            System.exit(ok ? 0 : 1);
+        }
 
-                TypeCheckVisitor eval2 = new TypeCheckVisitor();
-                root.accept(eval2, table);
+        if(files.size() == 0){
+            System.err.println("Usage: java Main [--jobs N [--max-inflight MB]] [--output text|silent|json] [--lexer ring|auto|table] [--tokenize-first] [--skip-comments] [--pipeline] [--memo-lookahead] [--count-lookahead] [--parser generated|descent] [--profile <out.json>] [--cache <dir> [--cache-size MB]] <inputFile>...");
+            System.err.println("       java Main --manifest <file|-> [--jobs N [--max-inflight MB]] [--output text|silent|json] [--lexer ring|auto|table] [--tokenize-first] [--skip-comments] [--pipeline] [--memo-lookahead] [--count-lookahead] [--parser generated|descent] [--profile <out.json>] [--cache <dir> [--cache-size MB]]");
+            System.err.println("       java Main --client <socket> [--output text|silent|json] [--lexer ring|auto|table] [--tokenize-first] [--skip-comments] [--pipeline] [--parser generated|descent] <inputFile>...");
+            System.err.println("       java Main --server <socket> [--jobs N] [--cache <dir> [--cache-size MB]]");
+            System.exit(1);
+        }
 
+        if(client != null) {
+            // The server checks with its own cache and threads, and what these print stays in the server.
+            if(jobsGiven || cacheDir != null || profile != null || options.memoLookahead || options.countLookahead) {
+                System.err.println("--jobs, --cache, --profile, --memo-lookahead and --count-lookahead don't go with --client.");
+                System.exit(1);
             }
-            catch(ParseException ex){
-                System.out.println(ex.getMessage());
+            boolean ok = CompileServer.request(client, files, options, System.out, System.err);
+            System.exit(ok ? 0 : 1);
+        }
+
+        ProfileReport report = profile != null ? new ProfileReport() : null;
+        boolean failed = false;
+        if(jobs <= 1) {
+            for(String file : files) {
+                CompileTask task = new CompileTask(file, System.out, System.err).set(options);
+                if(report != null) task.profile = new PhaseProfile();
+                failed |= task.call().outcome != Outcome.OK;
+                if(report != null) report.add(task);
+                printLookahead(task);
             }
-            catch(FileNotFoundException ex){
-                System.err.println(ex.getMessage());
+        }
+        else {
+            failed = runParallel(files, jobs, admission, options, report);
+        }
+
+        if(report != null) {
+            report.write(profile);
+        }
+        if(options.memoLookahead) {
+            System.err.println(LookaheadMemo.summary());
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    // Every file goes to the pool as memory allows, results are printed in input order. Returns true if any file failed.
+    private static boolean runParallel(List<String> files, int jobs, Admission admission, CompileOptions options, ProfileReport report) throws Exception {
+        boolean failed = false;
+        Ingest ingest = new Ingest(jobs, admission);
+        List<CompileTask> tasks = new ArrayList<>();
+        List<Future<CompileTask>> results = new ArrayList<>();
+        try{
+            for(String file : files) {
+                CompileTask task = new CompileTask(file).set(options);
+                if(report != null) task.profile = new PhaseProfile();
+                tasks.add(task);
+                results.add(ingest.submit(task));
             }
-            finally{
+            for(int i = 0; i < tasks.size(); i++) {
                 try{
-                    if(fis != null) fis.close();
+                    failed |= results.get(i).get().outcome != Outcome.OK;
+                    if(report != null) report.add(tasks.get(i));
                 }
-                catch(IOException ex){
-                    System.err.println(ex.getMessage());
+                finally{
+                    tasks.get(i).flushTo(System.out, System.err);
+                    printLookahead(tasks.get(i));
                 }
             }
         }
+        catch(ExecutionException ex){
+            if(ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+            throw ex;
+        }
+        finally{
+            ingest.shutdown();
+        }
+        return failed;
+    }
+
+    // With --count-lookahead, what the parser's lookaheads did on the file, after its output.
+    private static void printLookahead(CompileTask task) {
+        if(task.lookahead != null) {
+            System.err.println(task.fileName + ": lookahead " + task.lookahead.toJson());
+        }
     }
 }
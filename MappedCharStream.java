@@ -0,0 +1,118 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A JavaCharStream that lexes straight out of a memory-mapped file, instead of
+ * FileInputStream -> InputStreamReader -> JavaCharStream.
+ *
+ * Only FillBuff is replaced, so BeginToken, readChar, backup, GetImage and the unicode
+ * escapes all work as before. Bytes are decoded with the default charset, like the
+ * InputStreamReader this replaces, and ASCII is copied over without the decoder.
+ */
+public class MappedCharStream extends JavaCharStream {
+    // Below this, reading the file is cheaper than mapping it.
+    public static final long THRESHOLD = 1 << 20;
+
+    private final ByteBuffer input;
+    private final CharsetDecoder decoder;
+    private final boolean asciiCompatible;
+
+    private boolean flushed = false;
+
+    // Half of a surrogate pair that didn't fit in the last FillBuff.
+    private final CharBuffer pending = CharBuffer.allocate(2);
+
+    public MappedCharStream(ByteBuffer input) {
+        super((java.io.Reader) null, 1, 1, 4096);
+        this.input = input;
+        Charset charset = Charset.defaultCharset();
+        this.decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.asciiCompatible = charset.equals(StandardCharsets.UTF_8)
+            || charset.equals(StandardCharsets.US_ASCII)
+            || charset.equals(StandardCharsets.ISO_8859_1);
+        this.pending.flip();
+    }
+
+    // The mapping stays valid after the channel is closed.
+    public static MappedCharStream map(FileChannel channel) throws IOException {
+        return new MappedCharStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+
+    @Override
+    protected void FillBuff() throws IOException {
+        if (maxNextCharInd == 4096)
+            maxNextCharInd = nextCharInd = 0;
+
+        int read = decode(nextCharBuf, maxNextCharInd, 4096 - maxNextCharInd);
+        if (read > 0) {
+            maxNextCharInd += read;
+            return;
+        }
+
+        // End of file, same bookkeeping as JavaCharStream.FillBuff.
+        if (bufpos != 0)
+        {
+          --bufpos;
+          backup(0);
+        }
+        else
+        {
+          bufline[bufpos] = line;
+          bufcolumn[bufpos] = column;
+        }
+        throw new IOException();
+    }
+
+    // Decodes at least one char into dst if there's any input left, returns how many.
+    private int decode(char[] dst, int offset, int length) {
+        int count = 0;
+        while(count < length && this.pending.hasRemaining()) {
+            dst[offset + count++] = this.pending.get();
+        }
+
+        if(this.asciiCompatible) {
+            ByteBuffer input = this.input;
+            while(count < length && input.hasRemaining()) {
+                byte b = input.get();
+                if(b < 0) {
+                    input.position(input.position() - 1);
+                    break;
+                }
+                dst[offset + count++] = (char) b;
+            }
+        }
+
+        if(count < length && this.input.hasRemaining()) {
+            CharBuffer out = CharBuffer.wrap(dst, offset + count, length - count);
+            this.decoder.decode(this.input, out, true);
+            count = out.position() - offset;
+            if(count == 0) {
+                // A surrogate pair with room for only one char, keep the second for next time.
+                this.pending.clear();
+                this.decoder.decode(this.input, this.pending, true);
+                this.pending.flip();
+                if(this.pending.hasRemaining()) {
+                    dst[offset + count++] = this.pending.get();
+                }
+            }
+        }
+
+        if(count == 0 && !this.input.hasRemaining() && !this.flushed) {
+            // Whatever a stateful charset still holds. The decoder has to see the end of input first.
+            CharBuffer out = CharBuffer.wrap(dst, offset, length);
+            this.decoder.decode(this.input, out, true);
+            this.decoder.flush(out);
+            this.flushed = true;
+            count = out.position() - offset;
+        }
+        return count == 0 ? -1 : count;
+    }
+}
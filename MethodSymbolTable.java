@@ -4,6 +4,7 @@ import visitor.*;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -21,14 +22,14 @@ public class MethodSymbolTable {
         this.type = type_;
     }
 
-    public void printMethod() {
-        System.out.println("Params");
+    public void printMethod(PrintWriter out) {
+        out.println("Params");
         for (Map.Entry<String, String> entry : this.params.entrySet()) {
-            System.out.println(entry.getKey() + " " + entry.getValue());
+            out.println(entry.getKey() + " " + entry.getValue());
         }
-        System.out.println("Vars");
+        out.println("Vars");
         for (Map.Entry<String, String> entry : this.vars.entrySet()) {
-            System.out.println(entry.getKey() + " " + entry.getValue());
+            out.println(entry.getKey() + " " + entry.getValue());
         }
     }
 }
\ No newline at end of file
@@ -4,6 +4,129 @@ import java.util.Vector;
 
 
 public class MiniJavaParser implements MiniJavaParserConstants {
+  /**
+   * ReInit for a parser that is kept around for many files. ReInit leaves behind
+   * some of the error reporting state of the last file (a lexical error in the
+   * middle of an error rescan leaves jj_rescan on), this clears that too so the
+   * next file parses exactly as it would with a new parser.
+   */
+  public void reset(java.io.InputStream stream) {
+    ReInit(stream);
+    clearErrorState();
+  }
+
+  /**
+   * The same, but lexing from a stream the caller made (e.g. a MappedCharStream).
+   * The parser's own stream is left alone for the next reset(InputStream).
+   */
+  public void reset(JavaCharStream stream) {
+    token_source.ReInit(stream);
+    ReInit(token_source);
+    clearErrorState();
+  }
+
+  private void clearErrorState() {
+    jj_gc = 0;
+    jj_kind = -1;
+    jj_rescan = false;
+    jj_endpos = 0;
+    jj_expentries.clear();
+    jj_memo_reach = null;
+  }
+
+  /**
+   * Remembers what lookahead scans found, see LookaheadMemo. null, the default, scans
+   * every time.
+   */
+  public LookaheadMemo memo = null;
+
+  // Set right before jj_memoized runs a routine itself, so the routine goes on with its body.
+  private boolean jj_memo_miss = false;
+  // The outcome jj_memoized found, true if the routine didn't match.
+  private boolean jj_memo_failed;
+  // The furthest token looked at since the innermost memoized routine started.
+  private Token jj_memo_reach = null;
+
+  /**
+   * The first thing the memoized jj_3R routines do (the Makefile puts it in): routine r is
+   * looked up, or run and remembered, at jj_scanpos. Returns true with its outcome in
+   * jj_memo_failed, false if the caller should scan itself.
+   *
+   * An entry stands in for the scan only if every token it looked at is within this lookahead's
+   * limit; the tokens are then counted against the limit as if they had just been scanned.
+   */
+  private boolean jj_memoized(int r) {
+    if (jj_memo_miss) {
+      jj_memo_miss = false;
+      return false;
+    }
+    if (jj_rescan) {
+      // Rescans for the error message collect the tokens that are expected, those have to scan.
+      return false;
+    }
+    Token start = jj_scanpos;
+    Token reach;
+    int slot = memo.find(start, r);
+    if (slot >= 0 && memo.reach(slot).index - jj_lastpos.index < jj_la) {
+      memo.hits++;
+      Token end = memo.end(slot);
+      reach = memo.reach(slot);
+      if (counters != null) counters.memoized(reach.index - start.index);
+      jj_memo_failed = end == null;
+      jj_scanpos = end == null ? start : end;
+      if (reach.index > jj_lastpos.index) {
+        jj_la -= reach.index - jj_lastpos.index;
+        jj_lastpos = reach;
+      }
+      reach = jj_memo_reach == null || reach.index > jj_memo_reach.index ? reach : jj_memo_reach;
+    }
+    else {
+      Token outer = jj_memo_reach;
+      jj_memo_reach = start;
+      jj_memo_miss = true;
+      jj_memo_failed = jj_3R(r);
+      memo.put(start, r, jj_memo_failed ? null : jj_scanpos, jj_memo_reach);
+      reach = outer == null || jj_memo_reach.index > outer.index ? jj_memo_reach : outer;
+    }
+    jj_memo_reach = reach;
+    return true;
+  }
+
+  // jj_3R(int r), the memoized routines by number, goes after this line. The Makefile writes it
+  // from the jj_3R_N each jj_3_N calls, so it follows whatever numbers JavaCC gives them.
+  private boolean jj_3R(int r) {
+    switch (r) {
+    case 13: return jj_3R_13();
+    case 15: return jj_3R_15();
+    case 17: return jj_3R_17();
+    case 16: return jj_3R_16();
+    case 20: return jj_3R_20();
+    case 14: return jj_3R_14();
+    default: throw new IllegalArgumentException("jj_3R_" + r + " isn't memoized.");
+    }
+  }
+
+  // Numbers the token after jj_scanpos, reading it if need be, as jj_scan_token is about to move there.
+  private void jj_memo_step() {
+    Token next = jj_scanpos.next;
+    if (next == null) {
+      next = jj_scanpos.next = token_source.getNextToken();
+    }
+    next.index = jj_scanpos.index + 1;
+    if (jj_memo_reach == null || next.index > jj_memo_reach.index) {
+      jj_memo_reach = next;
+    }
+  }
+
+  /**
+   * Counts what the lookaheads do, by production, see LookaheadCounters. The hooks are put in
+   * the generated code by the Makefile. null, the default, counts nothing.
+   */
+  public LookaheadCounters counters = null;
+
+  // The production each jj_2_N is called from, by N. The Makefile fills it in.
+  static final String[] jj_2_productions = {null, "MainClass", "TypeDeclaration", "MethodDeclaration", "Type", "Statement", "Statement", "PrimaryExpression"};
+
 
   final public Goal Goal() throws ParseException {
    MainClass n0;
@@ -388,7 +511,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     label_10:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
-      case 47:
+      case COMMA:
         ;
         break;
       default:
@@ -407,7 +530,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
    NodeToken n0;
    Token n1;
    FormalParameter n2;
-    n1 = jj_consume_token(47);
+    n1 = jj_consume_token(COMMA);
             n0 = JTBToolkit.makeNodeToken(n1);
     n2 = FormalParameter();
      {if (true) return new FormalParameterTerm(n0,n2);}
@@ -677,196 +800,105 @@ public class MiniJavaParser implements MiniJavaParserConstants {
   }
 
   final public Expression Expression() throws ParseException {
-   NodeChoice n0;
-   AndExpression n1;
-   CompareExpression n2;
-   PlusExpression n3;
-   MinusExpression n4;
-   TimesExpression n5;
-   ArrayLookup n6;
-   ArrayLength n7;
-   MessageSend n8;
-   PrimaryExpression n9;
-    if (jj_2_7(2147483647)) {
-      n1 = AndExpression();
-        n0 = new NodeChoice(n1, 0);
-    } else if (jj_2_8(2147483647)) {
-      n2 = CompareExpression();
-        n0 = new NodeChoice(n2, 1);
-    } else if (jj_2_9(2147483647)) {
-      n3 = PlusExpression();
-        n0 = new NodeChoice(n3, 2);
-    } else if (jj_2_10(2147483647)) {
-      n4 = MinusExpression();
-        n0 = new NodeChoice(n4, 3);
-    } else if (jj_2_11(2147483647)) {
-      n5 = TimesExpression();
-        n0 = new NodeChoice(n5, 4);
-    } else if (jj_2_12(2147483647)) {
-      n6 = ArrayLookup();
-        n0 = new NodeChoice(n6, 5);
-    } else if (jj_2_13(2147483647)) {
-      n7 = ArrayLength();
-        n0 = new NodeChoice(n7, 6);
-    } else if (jj_2_14(2147483647)) {
-      n8 = MessageSend();
-        n0 = new NodeChoice(n8, 7);
-    } else {
+   NodeChoice n0 = null;
+   PrimaryExpression n1;
+   Token n2;
+   PrimaryExpression n3;
+   Token n4;
+   Identifier n5;
+   Token n6;
+   NodeOptional n7;
+   ExpressionList n8;
+   Token n9;
+    n1 = PrimaryExpression();
+    switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
+    case LSQPAREN:
+    case DOT:
+    case LT:
+    case PLUS:
+    case MINUS:
+    case AND:
+    case TIMES:
       switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
-      case LPAREN:
-      case NOT:
-      case FALSE:
-      case NEW:
-      case THIS:
-      case TRUE:
-      case INTEGER_LITERAL:
-      case IDENTIFIER:
-        n9 = PrimaryExpression();
-        n0 = new NodeChoice(n9, 8);
+      case AND:
+        n2 = jj_consume_token(AND);
+        n3 = PrimaryExpression();
+           n0 = new NodeChoice(new AndExpression(n1,JTBToolkit.makeNodeToken(n2),n3), 0);
+        break;
+      case LT:
+        n2 = jj_consume_token(LT);
+        n3 = PrimaryExpression();
+           n0 = new NodeChoice(new CompareExpression(n1,JTBToolkit.makeNodeToken(n2),n3), 1);
+        break;
+      case PLUS:
+        n2 = jj_consume_token(PLUS);
+        n3 = PrimaryExpression();
+           n0 = new NodeChoice(new PlusExpression(n1,JTBToolkit.makeNodeToken(n2),n3), 2);
+        break;
+      case MINUS:
+        n2 = jj_consume_token(MINUS);
+        n3 = PrimaryExpression();
+           n0 = new NodeChoice(new MinusExpression(n1,JTBToolkit.makeNodeToken(n2),n3), 3);
+        break;
+      case TIMES:
+        n2 = jj_consume_token(TIMES);
+        n3 = PrimaryExpression();
+           n0 = new NodeChoice(new TimesExpression(n1,JTBToolkit.makeNodeToken(n2),n3), 4);
+        break;
+      case LSQPAREN:
+        n2 = jj_consume_token(LSQPAREN);
+        n3 = PrimaryExpression();
+        n4 = jj_consume_token(RSQPAREN);
+           n0 = new NodeChoice(new ArrayLookup(n1,JTBToolkit.makeNodeToken(n2),n3,JTBToolkit.makeNodeToken(n4)), 5);
+        break;
+      case DOT:
+        n2 = jj_consume_token(DOT);
+        switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
+        case LENGTH:
+          n4 = jj_consume_token(LENGTH);
+              n0 = new NodeChoice(new ArrayLength(n1,JTBToolkit.makeNodeToken(n2),JTBToolkit.makeNodeToken(n4)), 6);
+          break;
+        case IDENTIFIER:
+          n5 = Identifier();
+          n6 = jj_consume_token(LPAREN);
+                       n7 = new NodeOptional();
+          switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
+          case LPAREN:
+          case NOT:
+          case FALSE:
+          case NEW:
+          case THIS:
+          case TRUE:
+          case INTEGER_LITERAL:
+          case IDENTIFIER:
+            n8 = ExpressionList();
+                 n7.addNode(n8);
+            break;
+          default:
+            jj_la1[14] = jj_gen;
+            ;
+          }
+          n9 = jj_consume_token(RPAREN);
+              n0 = new NodeChoice(new MessageSend(n1,JTBToolkit.makeNodeToken(n2),n5,JTBToolkit.makeNodeToken(n6),n7,JTBToolkit.makeNodeToken(n9)), 7);
+          break;
+        default:
+          jj_la1[15] = jj_gen;
+          jj_consume_token(-1);
+          throw new ParseException();
+        }
         break;
       default:
-        jj_la1[14] = jj_gen;
+        jj_la1[16] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
-    }
-     {if (true) return new Expression(n0);}
-    throw new Error("Missing return statement in function");
-  }
-
-  final public AndExpression AndExpression() throws ParseException {
-   PrimaryExpression n0;
-   NodeToken n1;
-   Token n2;
-   PrimaryExpression n3;
-    n0 = PrimaryExpression();
-    n2 = jj_consume_token(AND);
-             n1 = JTBToolkit.makeNodeToken(n2);
-    n3 = PrimaryExpression();
-     {if (true) return new AndExpression(n0,n1,n3);}
-    throw new Error("Missing return statement in function");
-  }
-
-  final public CompareExpression CompareExpression() throws ParseException {
-   PrimaryExpression n0;
-   NodeToken n1;
-   Token n2;
-   PrimaryExpression n3;
-    n0 = PrimaryExpression();
-    n2 = jj_consume_token(LT);
-            n1 = JTBToolkit.makeNodeToken(n2);
-    n3 = PrimaryExpression();
-     {if (true) return new CompareExpression(n0,n1,n3);}
-    throw new Error("Missing return statement in function");
-  }
-
-  final public PlusExpression PlusExpression() throws ParseException {
-   PrimaryExpression n0;
-   NodeToken n1;
-   Token n2;
-   PrimaryExpression n3;
-    n0 = PrimaryExpression();
-    n2 = jj_consume_token(PLUS);
-            n1 = JTBToolkit.makeNodeToken(n2);
-    n3 = PrimaryExpression();
-     {if (true) return new PlusExpression(n0,n1,n3);}
-    throw new Error("Missing return statement in function");
-  }
-
-  final public MinusExpression MinusExpression() throws ParseException {
-   PrimaryExpression n0;
-   NodeToken n1;
-   Token n2;
-   PrimaryExpression n3;
-    n0 = PrimaryExpression();
-    n2 = jj_consume_token(MINUS);
-            n1 = JTBToolkit.makeNodeToken(n2);
-    n3 = PrimaryExpression();
-     {if (true) return new MinusExpression(n0,n1,n3);}
-    throw new Error("Missing return statement in function");
-  }
-
-  final public TimesExpression TimesExpression() throws ParseException {
-   PrimaryExpression n0;
-   NodeToken n1;
-   Token n2;
-   PrimaryExpression n3;
-    n0 = PrimaryExpression();
-    n2 = jj_consume_token(48);
-            n1 = JTBToolkit.makeNodeToken(n2);
-    n3 = PrimaryExpression();
-     {if (true) return new TimesExpression(n0,n1,n3);}
-    throw new Error("Missing return statement in function");
-  }
-
-  final public ArrayLookup ArrayLookup() throws ParseException {
-   PrimaryExpression n0;
-   NodeToken n1;
-   Token n2;
-   PrimaryExpression n3;
-   NodeToken n4;
-   Token n5;
-    n0 = PrimaryExpression();
-    n2 = jj_consume_token(LSQPAREN);
-            n1 = JTBToolkit.makeNodeToken(n2);
-    n3 = PrimaryExpression();
-    n5 = jj_consume_token(RSQPAREN);
-            n4 = JTBToolkit.makeNodeToken(n5);
-     {if (true) return new ArrayLookup(n0,n1,n3,n4);}
-    throw new Error("Missing return statement in function");
-  }
-
-  final public ArrayLength ArrayLength() throws ParseException {
-   PrimaryExpression n0;
-   NodeToken n1;
-   Token n2;
-   NodeToken n3;
-   Token n4;
-    n0 = PrimaryExpression();
-    n2 = jj_consume_token(DOT);
-            n1 = JTBToolkit.makeNodeToken(n2);
-    n4 = jj_consume_token(LENGTH);
-                 n3 = JTBToolkit.makeNodeToken(n4);
-     {if (true) return new ArrayLength(n0,n1,n3);}
-    throw new Error("Missing return statement in function");
-  }
-
-  final public MessageSend MessageSend() throws ParseException {
-   PrimaryExpression n0;
-   NodeToken n1;
-   Token n2;
-   Identifier n3;
-   NodeToken n4;
-   Token n5;
-   NodeOptional n6 = new NodeOptional();
-   ExpressionList n7;
-   NodeToken n8;
-   Token n9;
-    n0 = PrimaryExpression();
-    n2 = jj_consume_token(DOT);
-            n1 = JTBToolkit.makeNodeToken(n2);
-    n3 = Identifier();
-    n5 = jj_consume_token(LPAREN);
-            n4 = JTBToolkit.makeNodeToken(n5);
-    switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
-    case LPAREN:
-    case NOT:
-    case FALSE:
-    case NEW:
-    case THIS:
-    case TRUE:
-    case INTEGER_LITERAL:
-    case IDENTIFIER:
-      n7 = ExpressionList();
-        n6.addNode(n7);
       break;
     default:
-      jj_la1[15] = jj_gen;
+      jj_la1[17] = jj_gen;
       ;
     }
-    n9 = jj_consume_token(RPAREN);
-            n8 = JTBToolkit.makeNodeToken(n9);
-     {if (true) return new MessageSend(n0,n1,n3,n4,n6,n8);}
+     if (n0 == null) n0 = new NodeChoice(n1, 8);
+     {if (true) return new Expression(n0);}
     throw new Error("Missing return statement in function");
   }
 
@@ -885,11 +917,11 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     label_12:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
-      case 47:
+      case COMMA:
         ;
         break;
       default:
-        jj_la1[16] = jj_gen;
+        jj_la1[18] = jj_gen;
         break label_12;
       }
       n1 = ExpressionTerm();
@@ -904,7 +936,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
    NodeToken n0;
    Token n1;
    Expression n2;
-    n1 = jj_consume_token(47);
+    n1 = jj_consume_token(COMMA);
             n0 = JTBToolkit.makeNodeToken(n1);
     n2 = Expression();
      {if (true) return new ExpressionTerm(n0,n2);}
@@ -944,8 +976,8 @@ public class MiniJavaParser implements MiniJavaParserConstants {
         n0 = new NodeChoice(n5, 4);
       break;
     default:
-      jj_la1[17] = jj_gen;
-      if (jj_2_15(3)) {
+      jj_la1[19] = jj_gen;
+      if (jj_2_7(3)) {
         n6 = ArrayAllocationExpression();
         n0 = new NodeChoice(n6, 5);
       } else {
@@ -963,7 +995,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
         n0 = new NodeChoice(n9, 8);
           break;
         default:
-          jj_la1[18] = jj_gen;
+          jj_la1[20] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
@@ -978,7 +1010,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
    Token n1;
     n1 = jj_consume_token(INTEGER_LITERAL);
                           n0 = JTBToolkit.makeNodeToken(n1);
-     {if (true) return new IntegerLiteral(n0);}
+     {if (true) return new IntegerLiteral(n0, n1.value);}
     throw new Error("Missing return statement in function");
   }
 
@@ -1087,6 +1119,8 @@ public class MiniJavaParser implements MiniJavaParserConstants {
   }
 
   private boolean jj_2_1(int xla) {
+    if (counters != null) counters.call(1);
+    jj_memo_reach = null;
     jj_la = xla; jj_lastpos = jj_scanpos = token;
     try { return !jj_3_1(); }
     catch(LookaheadSuccess ls) { return true; }
@@ -1094,6 +1128,8 @@ public class MiniJavaParser implements MiniJavaParserConstants {
   }
 
   private boolean jj_2_2(int xla) {
+    if (counters != null) counters.call(2);
+    jj_memo_reach = null;
     jj_la = xla; jj_lastpos = jj_scanpos = token;
     try { return !jj_3_2(); }
     catch(LookaheadSuccess ls) { return true; }
@@ -1101,6 +1137,8 @@ public class MiniJavaParser implements MiniJavaParserConstants {
   }
 
   private boolean jj_2_3(int xla) {
+    if (counters != null) counters.call(3);
+    jj_memo_reach = null;
     jj_la = xla; jj_lastpos = jj_scanpos = token;
     try { return !jj_3_3(); }
     catch(LookaheadSuccess ls) { return true; }
@@ -1108,6 +1146,8 @@ public class MiniJavaParser implements MiniJavaParserConstants {
   }
 
   private boolean jj_2_4(int xla) {
+    if (counters != null) counters.call(4);
+    jj_memo_reach = null;
     jj_la = xla; jj_lastpos = jj_scanpos = token;
     try { return !jj_3_4(); }
     catch(LookaheadSuccess ls) { return true; }
@@ -1115,6 +1155,8 @@ public class MiniJavaParser implements MiniJavaParserConstants {
   }
 
   private boolean jj_2_5(int xla) {
+    if (counters != null) counters.call(5);
+    jj_memo_reach = null;
     jj_la = xla; jj_lastpos = jj_scanpos = token;
     try { return !jj_3_5(); }
     catch(LookaheadSuccess ls) { return true; }
@@ -1122,6 +1164,8 @@ public class MiniJavaParser implements MiniJavaParserConstants {
   }
 
   private boolean jj_2_6(int xla) {
+    if (counters != null) counters.call(6);
+    jj_memo_reach = null;
     jj_la = xla; jj_lastpos = jj_scanpos = token;
     try { return !jj_3_6(); }
     catch(LookaheadSuccess ls) { return true; }
@@ -1129,87 +1173,27 @@ public class MiniJavaParser implements MiniJavaParserConstants {
   }
 
   private boolean jj_2_7(int xla) {
+    if (counters != null) counters.call(7);
+    jj_memo_reach = null;
     jj_la = xla; jj_lastpos = jj_scanpos = token;
     try { return !jj_3_7(); }
     catch(LookaheadSuccess ls) { return true; }
     finally { jj_save(6, xla); }
   }
 
-  private boolean jj_2_8(int xla) {
-    jj_la = xla; jj_lastpos = jj_scanpos = token;
-    try { return !jj_3_8(); }
-    catch(LookaheadSuccess ls) { return true; }
-    finally { jj_save(7, xla); }
-  }
-
-  private boolean jj_2_9(int xla) {
-    jj_la = xla; jj_lastpos = jj_scanpos = token;
-    try { return !jj_3_9(); }
-    catch(LookaheadSuccess ls) { return true; }
-    finally { jj_save(8, xla); }
-  }
-
-  private boolean jj_2_10(int xla) {
-    jj_la = xla; jj_lastpos = jj_scanpos = token;
-    try { return !jj_3_10(); }
-    catch(LookaheadSuccess ls) { return true; }
-    finally { jj_save(9, xla); }
-  }
-
-  private boolean jj_2_11(int xla) {
-    jj_la = xla; jj_lastpos = jj_scanpos = token;
-    try { return !jj_3_11(); }
-    catch(LookaheadSuccess ls) { return true; }
-    finally { jj_save(10, xla); }
-  }
-
-  private boolean jj_2_12(int xla) {
-    jj_la = xla; jj_lastpos = jj_scanpos = token;
-    try { return !jj_3_12(); }
-    catch(LookaheadSuccess ls) { return true; }
-    finally { jj_save(11, xla); }
-  }
-
-  private boolean jj_2_13(int xla) {
-    jj_la = xla; jj_lastpos = jj_scanpos = token;
-    try { return !jj_3_13(); }
-    catch(LookaheadSuccess ls) { return true; }
-    finally { jj_save(12, xla); }
-  }
-
-  private boolean jj_2_14(int xla) {
-    jj_la = xla; jj_lastpos = jj_scanpos = token;
-    try { return !jj_3_14(); }
-    catch(LookaheadSuccess ls) { return true; }
-    finally { jj_save(13, xla); }
-  }
-
-  private boolean jj_2_15(int xla) {
-    jj_la = xla; jj_lastpos = jj_scanpos = token;
-    try { return !jj_3_15(); }
-    catch(LookaheadSuccess ls) { return true; }
-    finally { jj_save(14, xla); }
-  }
-
   private boolean jj_3_1() {
     if (jj_3R_13()) return true;
     return false;
   }
 
   private boolean jj_3R_15() {
+    if (memo != null && jj_memoized(15)) return jj_memo_failed;
     if (jj_scan_token(INTEGER)) return true;
     if (jj_scan_token(LSQPAREN)) return true;
     if (jj_scan_token(RSQPAREN)) return true;
     return false;
   }
 
-  private boolean jj_3R_52() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(AND)) return true;
-    if (jj_3R_18()) return true;
-    return false;
-  }
-
   private boolean jj_3R_19() {
     if (jj_scan_token(IDENTIFIER)) return true;
     return false;
@@ -1222,36 +1206,39 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     return false;
   }
 
-  private boolean jj_3R_64() {
-    if (jj_scan_token(47)) return true;
-    if (jj_3R_42()) return true;
-    return false;
-  }
-
-  private boolean jj_3R_57() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(LSQPAREN)) return true;
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(RSQPAREN)) return true;
-    return false;
-  }
-
-  private boolean jj_3_14() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(DOT)) return true;
-    if (jj_3R_19()) return true;
-    if (jj_scan_token(LPAREN)) return true;
+  private boolean jj_3R_43() {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_44()) {
+    jj_scanpos = xsp;
+    if (jj_3R_45()) {
+    jj_scanpos = xsp;
+    if (jj_3R_46()) {
+    jj_scanpos = xsp;
+    if (jj_3R_47()) {
+    jj_scanpos = xsp;
+    if (jj_3R_48()) {
+    jj_scanpos = xsp;
+    if (jj_3R_49()) {
+    jj_scanpos = xsp;
+    if (jj_3R_50()) return true;
+    }
+    }
+    }
+    }
+    }
+    }
     return false;
   }
 
-  private boolean jj_3_13() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(DOT)) return true;
-    if (jj_scan_token(LENGTH)) return true;
+  private boolean jj_3R_64() {
+    if (jj_scan_token(COMMA)) return true;
+    if (jj_3R_42()) return true;
     return false;
   }
 
-  private boolean jj_3R_51() {
+  private boolean jj_3R_44() {
+    if (jj_scan_token(AND)) return true;
     if (jj_3R_18()) return true;
     return false;
   }
@@ -1266,19 +1253,14 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     return false;
   }
 
-  private boolean jj_3_12() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(LSQPAREN)) return true;
-    return false;
-  }
-
   private boolean jj_3R_31() {
     if (jj_3R_41()) return true;
     return false;
   }
 
-  private boolean jj_3R_50() {
-    if (jj_3R_59()) return true;
+  private boolean jj_3R_45() {
+    if (jj_scan_token(LT)) return true;
+    if (jj_3R_18()) return true;
     return false;
   }
 
@@ -1292,19 +1274,14 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     return false;
   }
 
-  private boolean jj_3_11() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(48)) return true;
-    return false;
-  }
-
   private boolean jj_3R_63() {
     if (jj_3R_64()) return true;
     return false;
   }
 
-  private boolean jj_3R_49() {
-    if (jj_3R_58()) return true;
+  private boolean jj_3R_46() {
+    if (jj_scan_token(PLUS)) return true;
+    if (jj_3R_18()) return true;
     return false;
   }
 
@@ -1319,12 +1296,6 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     return false;
   }
 
-  private boolean jj_3_10() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(MINUS)) return true;
-    return false;
-  }
-
   private boolean jj_3R_62() {
     Token xsp;
     while (true) {
@@ -1334,14 +1305,8 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     return false;
   }
 
-  private boolean jj_3R_48() {
-    if (jj_3R_57()) return true;
-    return false;
-  }
-
-  private boolean jj_3R_56() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(48)) return true;
+  private boolean jj_3R_47() {
+    if (jj_scan_token(MINUS)) return true;
     if (jj_3R_18()) return true;
     return false;
   }
@@ -1351,6 +1316,12 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     return false;
   }
 
+  private boolean jj_3R_48() {
+    if (jj_scan_token(TIMES)) return true;
+    if (jj_3R_18()) return true;
+    return false;
+  }
+
   private boolean jj_3R_21() {
     Token xsp;
     xsp = jj_scanpos;
@@ -1367,25 +1338,10 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     return false;
   }
 
-  private boolean jj_3_9() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(PLUS)) return true;
-    return false;
-  }
-
-  private boolean jj_3R_47() {
-    if (jj_3R_56()) return true;
-    return false;
-  }
-
-  private boolean jj_3_8() {
+  private boolean jj_3R_49() {
+    if (jj_scan_token(LSQPAREN)) return true;
     if (jj_3R_18()) return true;
-    if (jj_scan_token(LT)) return true;
-    return false;
-  }
-
-  private boolean jj_3R_46() {
-    if (jj_3R_55()) return true;
+    if (jj_scan_token(RSQPAREN)) return true;
     return false;
   }
 
@@ -1394,17 +1350,6 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     return false;
   }
 
-  private boolean jj_3_7() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(AND)) return true;
-    return false;
-  }
-
-  private boolean jj_3R_45() {
-    if (jj_3R_54()) return true;
-    return false;
-  }
-
   private boolean jj_3R_61() {
     if (jj_3R_42()) return true;
     if (jj_3R_62()) return true;
@@ -1416,6 +1361,12 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     return false;
   }
 
+  private boolean jj_3R_50() {
+    if (jj_scan_token(DOT)) return true;
+    if (jj_3R_51()) return true;
+    return false;
+  }
+
   private boolean jj_3_5() {
     if (jj_3R_16()) return true;
     return false;
@@ -1429,58 +1380,34 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     return false;
   }
 
-  private boolean jj_3R_44() {
+  private boolean jj_3R_51() {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_52()) {
+    jj_scanpos = xsp;
     if (jj_3R_53()) return true;
+    }
     return false;
   }
 
   private boolean jj_3R_14() {
+    if (memo != null && jj_memoized(14)) return jj_memo_failed;
     if (jj_scan_token(CLASS)) return true;
     if (jj_3R_19()) return true;
     if (jj_scan_token(LBRACE)) return true;
     return false;
   }
 
-  private boolean jj_3R_55() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(MINUS)) return true;
-    if (jj_3R_18()) return true;
-    return false;
-  }
-
-  private boolean jj_3R_43() {
-    if (jj_3R_52()) return true;
+  private boolean jj_3R_52() {
+    if (jj_scan_token(LENGTH)) return true;
     return false;
   }
 
   private boolean jj_3R_42() {
+    if (jj_3R_18()) return true;
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_43()) {
-    jj_scanpos = xsp;
-    if (jj_3R_44()) {
-    jj_scanpos = xsp;
-    if (jj_3R_45()) {
-    jj_scanpos = xsp;
-    if (jj_3R_46()) {
-    jj_scanpos = xsp;
-    if (jj_3R_47()) {
-    jj_scanpos = xsp;
-    if (jj_3R_48()) {
-    jj_scanpos = xsp;
-    if (jj_3R_49()) {
-    jj_scanpos = xsp;
-    if (jj_3R_50()) {
-    jj_scanpos = xsp;
-    if (jj_3R_51()) return true;
-    }
-    }
-    }
-    }
-    }
-    }
-    }
-    }
+    if (jj_3R_43()) jj_scanpos = xsp;
     return false;
   }
 
@@ -1489,6 +1416,16 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     return false;
   }
 
+  private boolean jj_3R_53() {
+    if (jj_3R_19()) return true;
+    if (jj_scan_token(LPAREN)) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_60()) jj_scanpos = xsp;
+    if (jj_scan_token(RPAREN)) return true;
+    return false;
+  }
+
   private boolean jj_3R_60() {
     if (jj_3R_61()) return true;
     return false;
@@ -1500,6 +1437,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
   }
 
   private boolean jj_3R_17() {
+    if (memo != null && jj_memoized(17)) return jj_memo_failed;
     if (jj_3R_19()) return true;
     if (jj_scan_token(LSQPAREN)) return true;
     return false;
@@ -1510,31 +1448,13 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     return false;
   }
 
-  private boolean jj_3R_59() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(DOT)) return true;
-    if (jj_3R_19()) return true;
-    if (jj_scan_token(LPAREN)) return true;
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_60()) jj_scanpos = xsp;
-    if (jj_scan_token(RPAREN)) return true;
-    return false;
-  }
-
-  private boolean jj_3R_54() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(PLUS)) return true;
-    if (jj_3R_18()) return true;
-    return false;
-  }
-
-  private boolean jj_3_15() {
+  private boolean jj_3_7() {
     if (jj_3R_20()) return true;
     return false;
   }
 
   private boolean jj_3R_20() {
+    if (memo != null && jj_memoized(20)) return jj_memo_failed;
     if (jj_scan_token(NEW)) return true;
     if (jj_scan_token(INTEGER)) return true;
     if (jj_scan_token(LSQPAREN)) return true;
@@ -1564,6 +1484,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
   }
 
   private boolean jj_3R_13() {
+    if (memo != null && jj_memoized(13)) return jj_memo_failed;
     if (jj_3R_21()) return true;
     if (jj_3R_19()) return true;
     return false;
@@ -1584,13 +1505,6 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     return false;
   }
 
-  private boolean jj_3R_53() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(LT)) return true;
-    if (jj_3R_18()) return true;
-    return false;
-  }
-
   private boolean jj_3R_40() {
     if (jj_scan_token(BOOLEAN)) return true;
     return false;
@@ -1609,7 +1523,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     jj_scanpos = xsp;
     if (jj_3R_26()) {
     jj_scanpos = xsp;
-    if (jj_3_15()) {
+    if (jj_3_7()) {
     jj_scanpos = xsp;
     if (jj_3R_27()) {
     jj_scanpos = xsp;
@@ -1628,6 +1542,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
   }
 
   private boolean jj_3R_16() {
+    if (memo != null && jj_memoized(16)) return jj_memo_failed;
     if (jj_3R_19()) return true;
     if (jj_scan_token(ASSIGN)) return true;
     return false;
@@ -1638,13 +1553,6 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     return false;
   }
 
-  private boolean jj_3R_58() {
-    if (jj_3R_18()) return true;
-    if (jj_scan_token(DOT)) return true;
-    if (jj_scan_token(LENGTH)) return true;
-    return false;
-  }
-
   /** Generated Token Manager. */
   public MiniJavaParserTokenManager token_source;
   JavaCharStream jj_input_stream;
@@ -1656,7 +1564,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
   private Token jj_scanpos, jj_lastpos;
   private int jj_la;
   private int jj_gen;
-  final private int[] jj_la1 = new int[19];
+  final private int[] jj_la1 = new int[21];
   static private int[] jj_la1_0;
   static private int[] jj_la1_1;
   static {
@@ -1664,12 +1572,12 @@ public class MiniJavaParser implements MiniJavaParserConstants {
       jj_la1_init_1();
    }
    private static void jj_la1_init_0() {
-      jj_la1_0 = new int[] {0x1000000,0x60002000,0x1000000,0x80800000,0x0,0x80800000,0x0,0x80800000,0x60002000,0x0,0x80800000,0x2000,0x60000000,0x60002000,0x10400200,0x10400200,0x0,0x10000000,0x400200,};
+      jj_la1_0 = new int[] {0x1000000,0x60002000,0x1000000,0x80800000,0x0,0x80800000,0x0,0x80800000,0x60002000,0x0,0x80800000,0x2000,0x60000000,0x60002000,0x10400200,0x0,0x3d0800,0x3d0800,0x0,0x10000000,0x400200,};
    }
    private static void jj_la1_init_1() {
-      jj_la1_1 = new int[] {0x0,0x1200,0x0,0x1000,0x8,0x1000,0x8,0x1000,0x1200,0x8000,0x1000,0x0,0x200,0x1200,0x1984,0x1984,0x8000,0x1980,0x4,};
+      jj_la1_1 = new int[] {0x0,0x1200,0x0,0x1000,0x8,0x1000,0x8,0x1000,0x1200,0x8000,0x1000,0x0,0x200,0x1200,0x1984,0x1001,0x10000,0x10000,0x8000,0x1980,0x4,};
    }
-  final private JJCalls[] jj_2_rtns = new JJCalls[15];
+  final private JJCalls[] jj_2_rtns = new JJCalls[7];
   private boolean jj_rescan = false;
   private int jj_gc = 0;
 
@@ -1684,7 +1592,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 19; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 21; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -1699,7 +1607,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 19; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 21; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -1710,7 +1618,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 19; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 21; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -1721,7 +1629,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 19; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 21; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -1731,7 +1639,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 19; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 21; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -1741,7 +1649,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 19; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 21; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -1749,6 +1657,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
     Token oldToken;
     if ((oldToken = token).next != null) token = token.next;
     else token = token.next = token_source.getNextToken();
+    if (memo != null) token.index = oldToken.index + 1;
     jj_ntk = -1;
     if (token.kind == kind) {
       jj_gen++;
@@ -1772,6 +1681,8 @@ public class MiniJavaParser implements MiniJavaParserConstants {
   static private final class LookaheadSuccess extends java.lang.Error { }
   final private LookaheadSuccess jj_ls = new LookaheadSuccess();
   private boolean jj_scan_token(int kind) {
+    if (counters != null) counters.scanned();
+    if (memo != null) jj_memo_step();
     if (jj_scanpos == jj_lastpos) {
       jj_la--;
       if (jj_scanpos.next == null) {
@@ -1788,7 +1699,10 @@ public class MiniJavaParser implements MiniJavaParserConstants {
       if (tok != null) jj_add_error_token(kind, i);
     }
     if (jj_scanpos.kind != kind) return true;
-    if (jj_la == 0 && jj_scanpos == jj_lastpos) throw jj_ls;
+    if (jj_la == 0 && jj_scanpos == jj_lastpos) {
+      if (counters != null) counters.succeeded();
+      throw jj_ls;
+    }
     return false;
   }
 
@@ -1858,7 +1772,7 @@ public class MiniJavaParser implements MiniJavaParserConstants {
       la1tokens[jj_kind] = true;
       jj_kind = -1;
     }
-    for (int i = 0; i < 19; i++) {
+    for (int i = 0; i < 21; i++) {
       if (jj_la1[i] == jj_gen) {
         for (int j = 0; j < 32; j++) {
           if ((jj_la1_0[i] & (1<<j)) != 0) {
@@ -1897,11 +1811,12 @@ public class MiniJavaParser implements MiniJavaParserConstants {
 
   private void jj_rescan_token() {
     jj_rescan = true;
-    for (int i = 0; i < 15; i++) {
+    for (int i = 0; i < 7; i++) {
     try {
       JJCalls p = jj_2_rtns[i];
       do {
         if (p.gen > jj_gen) {
+          if (counters != null) counters.rescan(i + 1);
           jj_la = p.arg; jj_lastpos = jj_scanpos = p.first;
           switch (i) {
             case 0: jj_3_1(); break;
@@ -1911,14 +1826,6 @@ public class MiniJavaParser implements MiniJavaParserConstants {
             case 4: jj_3_5(); break;
             case 5: jj_3_6(); break;
             case 6: jj_3_7(); break;
-            case 7: jj_3_8(); break;
-            case 8: jj_3_9(); break;
-            case 9: jj_3_10(); break;
-            case 10: jj_3_11(); break;
-            case 11: jj_3_12(); break;
-            case 12: jj_3_13(); break;
-            case 13: jj_3_14(); break;
-            case 14: jj_3_15(); break;
           }
         }
         p = p.next;
@@ -1948,6 +1855,6 @@ public class MiniJavaParser implements MiniJavaParserConstants {
 
 class JTBToolkit {
    static NodeToken makeNodeToken(Token t) {
-      return new NodeToken(t.image.intern(), t.kind, t.beginLine, t.beginColumn, t.endLine, t.endColumn);
+      return new NodeToken(t.image, t.kind, t.beginLine, t.beginColumn, t.endLine, t.endColumn);
    }
 }
@@ -5,6 +5,33 @@ import java.util.Vector;
 /** Token Manager. */
 public class MiniJavaParserTokenManager implements MiniJavaParserConstants
 {
+  /**
+   * Decodes every INTEGER_LITERAL into Token.value, so nothing after the parser has to parse
+   * its image. Lexers that fill tokens in themselves call this on each one too.
+   */
+  protected void CommonTokenAction(Token t) {
+    if (t.kind == INTEGER_LITERAL) {
+      t.value = literalValue(t);
+    }
+  }
+
+  /**
+   * The value of the INTEGER_LITERAL t. One past Integer.MAX_VALUE is a lexical error at the
+   * literal; there's no unary minus to make it fit.
+   */
+  static int literalValue(Token t) {
+    String image = t.image;
+    int value = 0;
+    for (int i = 0; i < image.length(); i++) {
+      int digit = image.charAt(i) - '0';
+      if (value > (Integer.MAX_VALUE - digit) / 10) {
+        throw new TokenMgrError("Lexical error at line " + t.beginLine + ", column " + t.beginColumn
+            + ".  Integer literal too large: " + image, TokenMgrError.LEXICAL_ERROR);
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
 
   /** Debug output. */
   public  java.io.PrintStream debugStream = System.out;
@@ -1167,6 +1194,7 @@ public Token getNextToken()
       jjmatchedKind = 0;
       matchedToken = jjFillToken();
       matchedToken.specialToken = specialToken;
+      CommonTokenAction(matchedToken);
       return matchedToken;
    }
 
@@ -1186,6 +1214,7 @@ public Token getNextToken()
       {
          matchedToken = jjFillToken();
          matchedToken.specialToken = specialToken;
+         CommonTokenAction(matchedToken);
          return matchedToken;
       }
       else
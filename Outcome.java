@@ -0,0 +1,12 @@
+/**
+ * How checking a single file ended. Anything other than OK only affects
+ * that file, the rest of the batch keeps going.
+ */
+public enum Outcome {
+    OK,
+    LEXICAL_ERROR,  // TokenMgrError from the token manager
+    PARSE_ERROR,    // ParseException from the parser
+    SEMANTIC_ERROR, // DeclVisitor/TypeCheckVisitor rejected the program
+    IO_ERROR,       // couldn't read the file
+    INTERNAL_ERROR  // bug in the checker itself (NullPointerException etc.)
+}
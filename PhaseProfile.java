@@ -0,0 +1,49 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * Wall time, CPU time and allocated bytes of every phase of checking one file.
+ * Measured on the current thread, so a file has to be checked start to end on one thread.
+ */
+public class PhaseProfile {
+    public static final int LEX = 0;
+    public static final int PARSE = 1;
+    public static final int DECL = 2;
+    public static final int TYPECHECK = 3;
+    public static final String[] PHASES = { "lex", "parse", "decl", "typecheck" };
+
+    private static final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public final long[] wall = new long[PHASES.length];
+    public final long[] cpu = new long[PHASES.length];
+    public final long[] allocated = new long[PHASES.length];
+
+    private int current = -1;
+    private long wallStart;
+    private long cpuStart;
+    private long allocatedStart;
+
+    public void begin(int phase) {
+        this.current = phase;
+        this.allocatedStart = allocatedBytes();
+        this.cpuStart = threads.getCurrentThreadCpuTime();
+        this.wallStart = System.nanoTime();
+    }
+
+    public void end() {
+        long wallEnd = System.nanoTime();
+        long cpuEnd = threads.getCurrentThreadCpuTime();
+        long allocatedEnd = allocatedBytes();
+        if(this.current < 0) {
+            return;
+        }
+        this.wall[this.current] += wallEnd - this.wallStart;
+        this.cpu[this.current] += cpuEnd - this.cpuStart;
+        this.allocated[this.current] += allocatedEnd - this.allocatedStart;
+        this.current = -1;
+    }
+
+    private static long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,184 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a token manager on a thread of its own, ahead of the parser. Tokens are handed over
+ * in batches through a bounded single-producer/single-consumer ring, so lexing a big file
+ * overlaps with parsing it when there's a core to spare. With none, the two threads just take
+ * turns and it's a bit slower than lexing on demand (see Benchmark parse).
+ *
+ * A lexical error is kept and thrown when the parser gets to it, like ReplayTokenManager does.
+ * Call close() when the parser is done, it stops the lexer thread if the parser gave up early.
+ */
+public class PipelinedTokenManager extends MiniJavaParserTokenManager implements AutoCloseable {
+    // Smaller files aren't worth a thread.
+    public static final long THRESHOLD = 1 << 20;
+
+    static final int BATCH = 512;
+    static final int SLOTS = 64;
+    // How long to spin before parking, while the other side is likely to be about to move on.
+    private static final int SPINS = 1 << 10;
+
+    private final MiniJavaParserTokenManager source;
+    private final Thread lexer;
+    private final Token[][] ring = new Token[SLOTS][];
+    // Batches put in and taken out so far, the ring holds the ones in between.
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong taken = new AtomicLong();
+    // Set once the lexer has published its last batch; error is set before that if it failed.
+    private volatile boolean finished = false;
+    private volatile Throwable error = null;
+    private volatile boolean closed = false;
+    // The thread parked waiting on the other one, if any.
+    private volatile Thread parkedParser = null;
+    private volatile Thread parkedLexer = null;
+
+    // Parser side.
+    private Token[] batch = new Token[0];
+    private int next = 0;
+    private Token last = null;
+
+    public PipelinedTokenManager(MiniJavaParserTokenManager source) {
+        super((JavaCharStream) null);
+        this.source = source;
+        this.lexer = new Thread(this::lex, "lexer");
+        this.lexer.setDaemon(true);
+        this.lexer.start();
+    }
+
+    @Override
+    public Token getNextToken() {
+        if(this.next == this.batch.length || this.batch[this.next] == null) {
+            if(this.last != null && this.last.kind == EOF) {
+                // Lookahead may ask past the end, keep answering EOF like the real token manager.
+                Token eof = Token.newToken(EOF, this.last.image);
+                eof.beginLine = this.last.beginLine;
+                eof.beginColumn = this.last.beginColumn;
+                eof.endLine = this.last.endLine;
+                eof.endColumn = this.last.endColumn;
+                return eof;
+            }
+            Token[] batch = take();
+            if(batch == null) {
+                Throwable error = this.error;
+                if(error instanceof Error) {
+                    throw (Error) error;
+                }
+                if(error instanceof RuntimeException) {
+                    throw (RuntimeException) error;
+                }
+                throw new IllegalStateException("The lexer thread stopped before EOF.", error);
+            }
+            this.batch = batch;
+            this.next = 0;
+        }
+        return this.last = this.batch[this.next++];
+    }
+
+    // Stops the lexer thread and waits for it.
+    @Override
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(this.lexer);
+        boolean interrupted = false;
+        while(this.lexer.isAlive()) {
+            try{
+                this.lexer.join();
+            }
+            catch(InterruptedException ex){
+                interrupted = true;
+            }
+        }
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void lex() {
+        Token[] batch = new Token[BATCH];
+        int size = 0;
+        try{
+            while(true) {
+                Token t = this.source.getNextToken();
+                batch[size++] = t;
+                if(t.kind == EOF) {
+                    break;
+                }
+                if(size == BATCH) {
+                    if(!publish(batch)) {
+                        return;
+                    }
+                    batch = new Token[BATCH];
+                    size = 0;
+                }
+            }
+        }
+        catch(Throwable ex){
+            // Whatever it is, the parser throws it when it gets here.
+            this.error = ex;
+        }
+        finally{
+            if(size > 0) {
+                publish(batch);
+            }
+            this.finished = true;
+            LockSupport.unpark(this.parkedParser);
+        }
+    }
+
+    // Puts batch in the ring once there's room. Returns false if the parser has closed it instead.
+    private boolean publish(Token[] batch) {
+        if(this.closed) {
+            return false;
+        }
+        long published = this.published.get();
+        for(int spins = 0; published - this.taken.get() == SLOTS; spins++) {
+            if(this.closed) {
+                return false;
+            }
+            if(spins < SPINS) {
+                Thread.onSpinWait();
+                continue;
+            }
+            // Parked only if the parser hasn't taken a batch since the check, it unparks after it does.
+            this.parkedLexer = Thread.currentThread();
+            if(published - this.taken.get() == SLOTS && !this.closed) {
+                LockSupport.park(this);
+            }
+            this.parkedLexer = null;
+        }
+        this.ring[(int) published & (SLOTS - 1)] = batch;
+        this.published.set(published + 1);
+        LockSupport.unpark(this.parkedParser);
+        return true;
+    }
+
+    // The next batch from the ring, or null if the lexer has finished without another one.
+    private Token[] take() {
+        long taken = this.taken.get();
+        for(int spins = 0; taken == this.published.get(); spins++) {
+            if(this.finished) {
+                // It may have published between the two reads.
+                if(taken == this.published.get()) {
+                    return null;
+                }
+                break;
+            }
+            if(spins < SPINS) {
+                Thread.onSpinWait();
+                continue;
+            }
+            this.parkedParser = Thread.currentThread();
+            if(taken == this.published.get() && !this.finished) {
+                LockSupport.park(this);
+            }
+            this.parkedParser = null;
+        }
+        int slot = (int) taken & (SLOTS - 1);
+        Token[] batch = this.ring[slot];
+        this.ring[slot] = null;
+        this.taken.set(taken + 1);
+        LockSupport.unpark(this.parkedLexer);
+        return batch;
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Token manager that takes identifier and literal images from a SymbolPool, one pool per
+ * file: a new one every time it's ReInit'ed. Comments keep plain images, they don't repeat.
+ *
+ * With keepComments off, comments are skipped like white space: no Token is made for them
+ * and tokens come with a null specialToken. Nothing in the checker looks at comments.
+ */
+public class PooledTokenManager extends MiniJavaParserTokenManager {
+    protected SymbolPool pool = new SymbolPool();
+    public boolean keepComments = true;
+
+    // What jjFillToken hands the generated getNextToken for a comment it doesn't keep.
+    protected final Token skipped = new Token();
+
+    public PooledTokenManager(JavaCharStream stream) {
+        super(stream);
+    }
+
+    @Override
+    public void ReInit(JavaCharStream stream) {
+        super.ReInit(stream);
+        this.pool = new SymbolPool();
+    }
+
+    @Override
+    public Token getNextToken() {
+        Token t = super.getNextToken();
+        if(!this.keepComments) {
+            // It has chained the skipped comments onto t.
+            t.specialToken = null;
+        }
+        return t;
+    }
+
+    protected static boolean isSpecial(int kind) {
+        return (jjtoSpecial[kind >> 6] & (1L << (kind & 077))) != 0L;
+    }
+
+    @Override
+    protected Token jjFillToken() {
+        int kind = jjmatchedKind;
+        if(!this.keepComments && isSpecial(kind)) {
+            return this.skipped;
+        }
+        String image = jjstrLiteralImages[kind];
+        if(image == null) {
+            image = isSpecial(kind) ? input_stream.GetImage() : input_stream.GetImage(this.pool);
+        }
+
+        Token t = Token.newToken(kind, image);
+        t.beginLine = input_stream.getBeginLine();
+        t.beginColumn = input_stream.getBeginColumn();
+        t.endLine = input_stream.getEndLine();
+        t.endColumn = input_stream.getEndColumn();
+        return t;
+    }
+}
@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the PhaseProfile of every file in a run and writes them out as JSON,
+ * together with percentiles of every phase over the whole batch.
+ */
+public class ProfileReport {
+    private final List<CompileTask> tasks = new ArrayList<CompileTask>();
+
+    public synchronized void add(CompileTask task) {
+        if(task.profile != null) {
+            this.tasks.add(task);
+        }
+    }
+
+    public synchronized void write(Path file) throws IOException {
+        try(PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")){
+            out.println("{");
+            out.println("  \"files\": [");
+            for(int i = 0; i < this.tasks.size(); i++) {
+                CompileTask task = this.tasks.get(i);
+                out.print("    {\"file\": " + JsonBatch.quote(task.fileName));
+                out.print(", \"outcome\": " + JsonBatch.quote(String.valueOf(task.outcome)));
+                out.print(", \"phases\": {");
+                for(int phase = 0; phase < PhaseProfile.PHASES.length; phase++) {
+                    out.print((phase > 0 ? ", " : "") + "\"" + PhaseProfile.PHASES[phase] + "\": {");
+                    out.print("\"wall_ns\": " + task.profile.wall[phase]);
+                    out.print(", \"cpu_ns\": " + task.profile.cpu[phase]);
+                    out.print(", \"alloc_bytes\": " + task.profile.allocated[phase] + "}");
+                }
+                out.print("}");
+                if(task.memoLookahead) {
+                    out.print(", \"lookahead_memo\": {\"lookups\": " + task.memoLookups + ", \"hits\": " + task.memoHits + "}");
+                }
+                if(task.lookahead != null) {
+                    out.print(", \"lookahead\": " + task.lookahead.toJson());
+                }
+                out.println("}" + (i + 1 < this.tasks.size() ? "," : ""));
+            }
+            out.println("  ],");
+
+            out.println("  \"summary\": {");
+            for(int phase = 0; phase < PhaseProfile.PHASES.length; phase++) {
+                long[] wall = new long[this.tasks.size()];
+                long[] cpu = new long[this.tasks.size()];
+                long[] allocated = new long[this.tasks.size()];
+                for(int i = 0; i < this.tasks.size(); i++) {
+                    wall[i] = this.tasks.get(i).profile.wall[phase];
+                    cpu[i] = this.tasks.get(i).profile.cpu[phase];
+                    allocated[i] = this.tasks.get(i).profile.allocated[phase];
+                }
+                out.print("    \"" + PhaseProfile.PHASES[phase] + "\": {");
+                out.print("\"wall_ns\": " + summary(wall));
+                out.print(", \"cpu_ns\": " + summary(cpu));
+                out.print(", \"alloc_bytes\": " + summary(allocated));
+                out.println("}" + (phase + 1 < PhaseProfile.PHASES.length ? "," : ""));
+            }
+            out.println("  }");
+            out.println("}");
+        }
+    }
+
+    private static String summary(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        long total = 0;
+        for(long value : sorted) {
+            total += value;
+        }
+        return "{\"total\": " + total
+            + ", \"p50\": " + percentile(sorted, 50)
+            + ", \"p90\": " + percentile(sorted, 90)
+            + ", \"p99\": " + percentile(sorted, 99)
+            + ", \"max\": " + (sorted.length == 0 ? 0 : sorted[sorted.length - 1]) + "}";
+    }
+
+    // Nearest-rank percentile of an already sorted array.
+    private static long percentile(long[] sorted, int p) {
+        if(sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+}
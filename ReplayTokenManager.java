@@ -0,0 +1,45 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a token manager over the whole input up front and then hands the tokens to the
+ * parser one by one. Used when profiling, so lexing and parsing can be timed apart.
+ * A lexical error is kept and thrown when the parser gets to it, like it would normally.
+ */
+public class ReplayTokenManager extends MiniJavaParserTokenManager {
+    private final List<Token> tokens = new ArrayList<Token>();
+    private TokenMgrError error = null;
+    private int next = 0;
+
+    public ReplayTokenManager(MiniJavaParserTokenManager source) {
+        super((JavaCharStream) null);
+        try{
+            Token token;
+            do {
+                token = source.getNextToken();
+                this.tokens.add(token);
+            } while(token.kind != EOF);
+        }
+        catch(TokenMgrError ex){
+            this.error = ex;
+        }
+    }
+
+    @Override
+    public Token getNextToken() {
+        if(this.next < this.tokens.size()) {
+            return this.tokens.get(this.next++);
+        }
+        if(this.error != null) {
+            throw this.error;
+        }
+        // Lookahead may ask past the end, keep answering EOF like the real token manager.
+        Token last = this.tokens.get(this.tokens.size() - 1);
+        Token eof = Token.newToken(EOF, last.image);
+        eof.beginLine = last.beginLine;
+        eof.beginColumn = last.beginColumn;
+        eof.endLine = last.endLine;
+        eof.endColumn = last.endColumn;
+        return eof;
+    }
+}
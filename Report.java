@@ -0,0 +1,38 @@
+import java.io.PrintStream;
+
+/**
+ * Where a check says what it found: the "parsed" line, the symbol table dumps, the
+ * methods it checked, type mismatches and the error that stopped it.
+ *
+ * Nothing is written until flush(), so a file's output goes out in one piece instead
+ * of one println at a time.
+ */
+public interface Report {
+    void parsed();
+
+    // Both symbol table dumps, once DeclVisitor is done.
+    void tables(SymbolTable table);
+
+    void methodChecked(String name);
+
+    void mismatch(String expected, String found);
+
+    // The lexical, parse or semantic error that ended the check.
+    void error(Outcome outcome, String message);
+
+    void flush();
+
+    // "text" is the classic output, "silent" prints nothing and "json" is one object per file.
+    static Report create(String format, PrintStream out, PrintStream err) {
+        if(format.equals("text")) {
+            return new TextReport(out, err);
+        }
+        else if(format.equals("silent")) {
+            return new SilentReport();
+        }
+        else if(format.equals("json")) {
+            return new JsonReport(out);
+        }
+        throw new IllegalArgumentException("Unknown output format " + format + ".");
+    }
+}
@@ -0,0 +1,290 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk cache of check results, keyed by the SHA-256 of the compiler version and the source.
+ *
+ * Every entry is one file in the cache directory, holding the outcome, the diagnostic and
+ * everything the check printed (symbol table dumps and diagnostics). The directory is kept under maxBytes
+ * by dropping the least recently used entries; last use is the file's modification time,
+ * so the order survives between runs.
+ *
+ * The lock only covers the in-memory index. Entries are read, written and deleted outside it, as
+ * another process sharing the directory would: a write goes to a temp file that is renamed in place,
+ * and an entry that is gone or torn when read is a miss.
+ */
+public class ResultCache {
+    // Bump when the output format changes without any class file changing.
+    static final String VERSION = "3";
+
+    public static class Entry {
+        public final Outcome outcome;
+        public final String diagnostic;
+        public final byte[] out;
+        public final byte[] err;
+
+        public Entry(Outcome outcome, String diagnostic, byte[] out, byte[] err) {
+            this.outcome = outcome;
+            this.diagnostic = diagnostic;
+            this.out = out;
+            this.err = err;
+        }
+    }
+
+    private final Path dir;
+    private final long maxBytes;
+    private final byte[] compilerVersion;
+
+    // Key -> entry size on disk, least recently used first.
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+
+    public ResultCache(Path dir, long maxBytes) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.compilerVersion = compilerVersion();
+
+        Files.createDirectories(dir);
+        List<Path> entries = new ArrayList<>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.res")){
+            for(Path entry : stream) {
+                entries.add(entry);
+            }
+        }
+        entries.sort((a, b) -> lastModified(a).compareTo(lastModified(b)));
+        for(Path entry : entries) {
+            String name = entry.getFileName().toString();
+            long size = Files.size(entry);
+            this.index.put(name.substring(0, name.length() - 4), size);
+            this.totalBytes += size;
+        }
+        delete(evict());
+    }
+
+    // options (the output format, the front end) are part of the key, see CompileTask.cacheOptions.
+    public String key(String options, byte[] source) {
+        MessageDigest digest = sha256();
+        digest.update(this.compilerVersion);
+        digest.update((options + "\n").getBytes(StandardCharsets.UTF_8));
+        digest.update(source);
+        StringBuilder key = new StringBuilder();
+        for(byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    public Entry get(String key) throws IOException {
+        synchronized(this) {
+            if(!this.index.containsKey(key)) {
+                return null;
+            }
+        }
+        Path file = this.dir.resolve(key + ".res");
+        byte[] data;
+        try{
+            data = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+        catch(NoSuchFileException ex){
+            // Someone else evicted it.
+            forget(key);
+            return null;
+        }
+
+        Entry entry = decode(data);
+        if(entry == null) {
+            // Torn or overwritten, drop it and let the caller check the file again.
+            forget(key);
+            Files.deleteIfExists(file);
+        }
+        else {
+            synchronized(this) {
+                // Moves it to the most recently used end.
+                this.index.get(key);
+            }
+        }
+        return entry;
+    }
+
+    private synchronized void forget(String key) {
+        Long size = this.index.remove(key);
+        if(size != null) {
+            this.totalBytes -= size;
+        }
+    }
+
+    // The entry written by put, or null if data isn't one.
+    private static Entry decode(byte[] data) {
+        int header = 0;
+        while(header < data.length && data[header] != '\n') {
+            header++;
+        }
+        if(header == data.length) {
+            return null;
+        }
+        String[] fields = new String(data, 0, header, StandardCharsets.UTF_8).split(" ");
+        if(fields.length != 4) {
+            return null;
+        }
+        Outcome outcome;
+        int diagnosticLength;
+        int outLength;
+        int errLength;
+        try{
+            outcome = Outcome.valueOf(fields[0]);
+            diagnosticLength = Integer.parseInt(fields[1]);
+            outLength = Integer.parseInt(fields[2]);
+            errLength = Integer.parseInt(fields[3]);
+        }
+        catch(IllegalArgumentException ex){
+            return null;
+        }
+        int position = header + 1;
+        if(diagnosticLength < -1 || outLength < 0 || errLength < 0
+                || (long) position + Math.max(diagnosticLength, 0) + outLength + errLength != data.length) {
+            return null;
+        }
+        String diagnostic = null;
+        if(diagnosticLength >= 0) {
+            diagnostic = new String(data, position, diagnosticLength, StandardCharsets.UTF_8);
+            position += diagnosticLength;
+        }
+        byte[] out = new byte[outLength];
+        byte[] err = new byte[errLength];
+        System.arraycopy(data, position, out, 0, outLength);
+        System.arraycopy(data, position + outLength, err, 0, errLength);
+        return new Entry(outcome, diagnostic, out, err);
+    }
+
+    public void put(String key, Entry entry) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        byte[] diagnostic = entry.diagnostic == null ? null : entry.diagnostic.getBytes(StandardCharsets.UTF_8);
+        String header = entry.outcome + " " + (diagnostic == null ? -1 : diagnostic.length) + " "
+            + entry.out.length + " " + entry.err.length + "\n";
+        data.write(header.getBytes(StandardCharsets.UTF_8));
+        if(diagnostic != null) {
+            data.write(diagnostic);
+        }
+        data.write(entry.out);
+        data.write(entry.err);
+
+        // Write next to the entry and move it in place, so readers never see half an entry.
+        Path file = this.dir.resolve(key + ".res");
+        Path temp = Files.createTempFile(this.dir, key, ".tmp");
+        Files.write(temp, data.toByteArray());
+        try{
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch(AtomicMoveNotSupportedException ex){
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        List<String> evicted;
+        synchronized(this) {
+            Long old = this.index.put(key, (long) data.size());
+            if(old != null) {
+                this.totalBytes -= old;
+            }
+            this.totalBytes += data.size();
+            evicted = evict();
+        }
+        delete(evicted);
+    }
+
+    // Drops the least recently used entries from the index until it fits, and returns their keys.
+    private synchronized List<String> evict() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> oldest = this.index.entrySet().iterator();
+        while(this.totalBytes > this.maxBytes && oldest.hasNext()) {
+            Map.Entry<String, Long> entry = oldest.next();
+            evicted.add(entry.getKey());
+            this.totalBytes -= entry.getValue();
+            oldest.remove();
+        }
+        return evicted;
+    }
+
+    private void delete(List<String> keys) throws IOException {
+        for(String key : keys) {
+            Files.deleteIfExists(this.dir.resolve(key + ".res"));
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try{
+            return Files.getLastModifiedTime(file);
+        }
+        catch(IOException ex){
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try{
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch(NoSuchAlgorithmException ex){
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * A hash of every class file the compiler was loaded from, so a rebuilt compiler never sees old
+     * results. A list of the classes that matter falls behind as soon as one more does, so it's the
+     * whole build: the jar ResultCache.class is in, or the class files in its directory and in the
+     * syntaxtree and visitor packages there. Nothing else under it is read; the tree builds in place,
+     * so that directory is the checkout, with .git, the test inputs and maybe the cache itself.
+     */
+    private static byte[] compilerVersion() throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(VERSION.getBytes(StandardCharsets.UTF_8));
+        Path build;
+        try{
+            build = Paths.get(ResultCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        }
+        catch(NullPointerException | URISyntaxException | IllegalArgumentException ex){
+            throw new IOException("Can't find the compiler's class files to version the cache.", ex);
+        }
+        if(!Files.isDirectory(build)) {
+            digest.update(Files.readAllBytes(build));
+            return digest.digest();
+        }
+        List<Path> classes = new ArrayList<>();
+        for(String dir : new String[] {"", "syntaxtree", "visitor"}) {
+            Path classDir = build.resolve(dir);
+            if(!Files.isDirectory(classDir)) {
+                continue;
+            }
+            try(DirectoryStream<Path> stream = Files.newDirectoryStream(classDir, "*.class")){
+                for(Path file : stream) {
+                    classes.add(file);
+                }
+            }
+        }
+        // The same order on every run, and a renamed class changes the hash too.
+        classes.sort(null);
+        for(Path file : classes) {
+            digest.update(build.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+            digest.update(Files.readAllBytes(file));
+        }
+        return digest.digest();
+    }
+}
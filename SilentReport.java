@@ -0,0 +1,29 @@
+/**
+ * Prints nothing, for runs that only care whether files pass.
+ * The outcome still goes to the exit code, the JSON batch lines and the cache.
+ */
+public class SilentReport implements Report {
+    @Override
+    public void parsed() {
+    }
+
+    @Override
+    public void tables(SymbolTable table) {
+    }
+
+    @Override
+    public void methodChecked(String name) {
+    }
+
+    @Override
+    public void mismatch(String expected, String found) {
+    }
+
+    @Override
+    public void error(Outcome outcome, String message) {
+    }
+
+    @Override
+    public void flush() {
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * A token that remembers where it is in a SourceCharStream.
+ *
+ * SourceTokenManager fills in image for every token the parser sees. Comments (special
+ * tokens) are left with a null image, call image() or toString() to get it.
+ */
+public class SliceToken extends Token {
+    private static final long serialVersionUID = 1L;
+
+    public final transient SourceCharStream source;
+    public final int offset;
+    public final int length;
+
+    public SliceToken(int kind, String image, SourceCharStream source, int offset, int length) {
+        super(kind, image);
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public String image() {
+        if(this.image == null) {
+            this.image = this.source.image(this.offset, this.length);
+        }
+        return this.image;
+    }
+
+    @Override
+    public String toString() {
+        return image();
+    }
+}
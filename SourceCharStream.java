@@ -0,0 +1,493 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A JavaCharStream over the whole source in one char[], instead of a ring buffer fed by a Reader.
+ *
+ * Unicode escapes are resolved once when the stream is made, and every token is just a
+ * slice [tokenBegin, pos] of text. Its image is only made when asked for: a plain string
+ * from GetImage, or one shared string per spelling from GetImage(SymbolPool).
+ *
+ * A pure ASCII source can be kept as the bytes it was read as instead (see ascii). Then
+ * nothing is decoded at all, except the images that are asked for.
+ *
+ * Positions aren't kept per char. The stream records where lines start (and the rare
+ * tab or escape that bends columns), and getBeginLine and friends work a position out
+ * when they're called, with the same results as JavaCharStream's bookkeeping. That is
+ * still once per token: NodeToken holds all four for every token. What the index saves
+ * is memory, a bufline and a bufcolumn int for every char of a file held whole.
+ */
+public class SourceCharStream extends JavaCharStream {
+    // One of the two is set. Bytes are all ASCII, each one is the char with the same value.
+    private final char[] text;
+    private final byte[] bytes;
+    private final int length;
+
+    // lineStarts[l] is the index of the first char of line l + 1.
+    private int[] lineStarts = new int[64];
+    private int lineCount = 1;
+
+    // Lines with a tab or an escape, where the column isn't just the distance from the line start.
+    private final java.util.BitSet crooked = new java.util.BitSet();
+
+    // Escaped chars, in order, and how many columns the escape took past its first backslash.
+    private int[] escapes = new int[0];
+    private int[] escapeWidths = new int[0];
+    private int escapeCount = 0;
+
+    // The last line looked up, and how far along it the column walk got.
+    private int hintLine = 0;
+    private int walkIndex = -1;
+    private int walkColumn = 0;
+    private int walkEscape = 0;
+    private int walkPending = 0;
+
+    private boolean eof = false;
+    private int pos = -1;
+    private int begin = 0;
+
+    // A bad escape doesn't stop the lexer until it reads that far, same as JavaCharStream.
+    private int errorAt = -1;
+    private String error = null;
+
+    // Set by SourceTokenManager: BeginToken passes over white space itself, a whole run at a time.
+    boolean skipWhiteSpace = false;
+
+    // Takes over source: escapes are resolved in place, the resolved text is never longer.
+    public SourceCharStream(char[] source, int sourceLength) {
+        this(source, sourceLength, true);
+    }
+
+    // With escapes false, backslashes are just chars: only for sources hasEscapes says are clean.
+    private SourceCharStream(char[] source, int sourceLength, boolean escapes) {
+        super((java.io.Reader) null, 1, 1, 1);
+        this.text = source;
+        this.bytes = null;
+        this.length = escapes ? resolve(source, sourceLength) : indexLines(sourceLength);
+    }
+
+    private SourceCharStream(byte[] source, int sourceLength) {
+        super((java.io.Reader) null, 1, 1, 1);
+        this.text = null;
+        this.bytes = source;
+        this.length = indexBytes(sourceLength);
+    }
+
+    public static SourceCharStream of(byte[] source) {
+        CharBuffer chars = decode(source);
+        return new SourceCharStream(chars.array(), chars.limit());
+    }
+
+    /**
+     * A stream that skips escape processing altogether, for a source without any
+     * backslash-u in it (see hasEscapes). Positions and tokens are the same as with escapes on.
+     */
+    public static SourceCharStream withoutEscapes(char[] source, int sourceLength) {
+        return new SourceCharStream(source, sourceLength, false);
+    }
+
+    /**
+     * A stream straight over source, or null if source has a byte outside ASCII or a
+     * backslash-u; those have to be decoded (see decode). ASCII reads the same in UTF-8
+     * and any other charset the default could be, so tokens and positions don't change.
+     */
+    public static SourceCharStream ascii(byte[] source) {
+        SourceCharStream stream = new SourceCharStream(source, source.length);
+        return stream.length < 0 ? null : stream;
+    }
+
+    // With the default charset, like the InputStreamReader in JavaCharStream(InputStream).
+    public static CharBuffer decode(byte[] source) {
+        return Charset.defaultCharset().decode(ByteBuffer.wrap(source));
+    }
+
+    // Whether a backslash is ever followed by a 'u'. If not, no char of the source can be part of an escape.
+    public static boolean hasEscapes(char[] source, int sourceLength) {
+        for(int i = 0; i < sourceLength - 1; i++) {
+            if(source[i] == '\\' && source[i + 1] == 'u') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // resolve() for a source without escapes: only the line index and the tabs.
+    private int indexLines(int sourceLength) {
+        char[] text = this.text;
+        for(int i = 0; i < sourceLength; i++) {
+            char c = text[i];
+            if(c > '\r') {
+                continue;
+            }
+            if(c == '\n' || (c == '\r' && (i + 1 == sourceLength || text[i + 1] != '\n'))) {
+                if(i + 1 < sourceLength) startLine(i + 1);
+            }
+            else if(c == '\t') {
+                this.crooked.set(this.lineCount - 1);
+            }
+        }
+        return sourceLength;
+    }
+
+    // indexLines() for bytes, in the same pass as the check for ascii(). Returns -1 if it fails.
+    private int indexBytes(int sourceLength) {
+        byte[] bytes = this.bytes;
+        for(int i = 0; i < sourceLength; i++) {
+            byte b = bytes[i];
+            if(b > '\r') {
+                if(b == '\\' && i + 1 < sourceLength && bytes[i + 1] == 'u') {
+                    return -1;
+                }
+                continue;
+            }
+            if(b < 0) {
+                return -1;
+            }
+            if(b == '\n' || (b == '\r' && (i + 1 == sourceLength || bytes[i + 1] != '\n'))) {
+                if(i + 1 < sourceLength) startLine(i + 1);
+            }
+            else if(b == '\t') {
+                this.crooked.set(this.lineCount - 1);
+            }
+        }
+        return sourceLength;
+    }
+
+    /**
+     * Resolves unicode escapes into text (raw itself) and indexes the lines. Returns the
+     * resolved length. A line starts after a '\n', or after a '\r' that isn't followed
+     * by one; escaped newlines don't count, like in JavaCharStream.
+     */
+    private int resolve(char[] raw, int rawLength) {
+        int n = 0;
+        int r = 0;
+        while(r < rawLength) {
+            char c = raw[r++];
+            this.text[n++] = c;
+            if(c <= '\r') {
+                if(c == '\n' || (c == '\r' && (r == rawLength || raw[r] != '\n'))) {
+                    if(r < rawLength) startLine(n);
+                }
+                else if(c == '\t') {
+                    this.crooked.set(this.lineCount - 1);
+                }
+                continue;
+            }
+            if(c != '\\') {
+                continue;
+            }
+
+            int runStart = n - 1;
+            int backSlashCnt = 1;
+            while(r < rawLength) {
+                c = raw[r++];
+                this.text[n] = c;
+                if(c == '\\') {
+                    n++;
+                    backSlashCnt++;
+                    continue;
+                }
+                if(c != 'u' || (backSlashCnt & 1) == 0) {
+                    // Not an escape, give c back to the outer loop.
+                    r--;
+                    break;
+                }
+
+                // An odd number of backslashes and a 'u': the last backslash becomes the escaped char.
+                int width = 5;
+                try{
+                    while(r < rawLength && raw[r] == 'u') {
+                        r++;
+                        width++;
+                    }
+                    if(r + 4 > rawLength) {
+                        r = rawLength;
+                        throw new IOException();
+                    }
+                    c = (char) (hexval(raw[r]) << 12 | hexval(raw[r + 1]) << 8 | hexval(raw[r + 2]) << 4 | hexval(raw[r + 3]));
+                    r += 4;
+                }
+                catch(IOException ex){
+                    // JavaCharStream has counted the 'u's but not the hex digits when it gives up.
+                    this.errorAt = runStart;
+                    this.error = "Invalid escape character at line " + lineOf(n - 1)
+                        + " column " + (columnOf(n - 1) + width - 4) + ".";
+                    return runStart;
+                }
+                this.text[n - 1] = c;
+                addEscape(n - 1, width);
+                break;
+            }
+        }
+        return n;
+    }
+
+    private void startLine(int index) {
+        if(this.lineCount == this.lineStarts.length) {
+            this.lineStarts = java.util.Arrays.copyOf(this.lineStarts, this.lineCount * 2);
+        }
+        this.lineStarts[this.lineCount++] = index;
+    }
+
+    private void addEscape(int index, int width) {
+        if(this.escapeCount == this.escapes.length) {
+            this.escapes = java.util.Arrays.copyOf(this.escapes, Math.max(8, this.escapeCount * 2));
+            this.escapeWidths = java.util.Arrays.copyOf(this.escapeWidths, this.escapes.length);
+        }
+        this.escapes[this.escapeCount] = index;
+        this.escapeWidths[this.escapeCount++] = width;
+        this.crooked.set(this.lineCount - 1);
+    }
+
+    // 0-based line of char i.
+    private int lineIndex(int i) {
+        int l = this.hintLine;
+        if(this.lineStarts[l] <= i && (l + 1 == this.lineCount || i < this.lineStarts[l + 1])) {
+            return l;
+        }
+        l = java.util.Arrays.binarySearch(this.lineStarts, 0, this.lineCount, i);
+        if(l < 0) {
+            l = -l - 2;
+        }
+        this.hintLine = l;
+        return l;
+    }
+
+    private int lineOf(int i) {
+        return lineIndex(i) + 1;
+    }
+
+    private int columnOf(int i) {
+        int l = lineIndex(i);
+        int lineStart = this.lineStarts[l];
+        if(!this.crooked.get(l)) {
+            return i - lineStart + 1;
+        }
+
+        // Walk the line like UpdateLineColumn would, from where the last walk stopped if we can.
+        int j = this.walkIndex;
+        int column = this.walkColumn;
+        int next = this.walkEscape;
+        int pending = this.walkPending;
+        if(j < lineStart || j > i) {
+            j = lineStart - 1;
+            column = 0;
+            pending = 0;
+            next = java.util.Arrays.binarySearch(this.escapes, 0, this.escapeCount, lineStart);
+            if(next < 0) {
+                next = -next - 1;
+            }
+        }
+        while(j < i) {
+            j++;
+            // An escaped char sits on its backslash, the rest of the escape comes after it.
+            column += pending + 1;
+            pending = 0;
+            if(next < this.escapeCount && this.escapes[next] == j) {
+                pending = this.escapeWidths[next++];
+            }
+            else if(charAt(j) == '\t') {
+                column--;
+                column += (tabSize - (column % tabSize));
+            }
+        }
+        this.walkIndex = j;
+        this.walkColumn = column;
+        this.walkEscape = next;
+        this.walkPending = pending;
+        return column;
+    }
+
+    // JavaCharStream's counters once the last char has been read, that's where EOF goes.
+    private int eofLine() {
+        return this.length == 0 ? 1 : lineOf(this.length - 1);
+    }
+
+    private int eofColumn() {
+        if(this.length == 0) {
+            return 0;
+        }
+        int column = columnOf(this.length - 1);
+        if(this.escapeCount > 0 && this.escapes[this.escapeCount - 1] == this.length - 1) {
+            column += this.escapeWidths[this.escapeCount - 1];
+        }
+        return column;
+    }
+
+    @Override
+    public char BeginToken() throws IOException {
+        try{
+            char c = readChar();
+            // The grammar skips white space before every token: the whole run here, not a char per call.
+            // An invalid escape is where length ends, so the readChar after the run throws as it would have.
+            if(c <= ' ' && this.skipWhiteSpace && isWhiteSpace(c)) {
+                this.pos = whiteSpace(this.pos + 1) - 1;
+                c = readChar();
+            }
+            this.begin = this.pos;
+            this.eof = false;
+            return c;
+        }
+        catch(IOException ex){
+            this.eof = true;
+            throw ex;
+        }
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        if(this.pos + 1 == this.errorAt) {
+            throw new Error(this.error);
+        }
+        if(this.pos + 1 >= this.length) {
+            throw new IOException();
+        }
+        return this.bytes != null ? (char) this.bytes[++this.pos] : this.text[++this.pos];
+    }
+
+    // The index of the first char from i on that isn't white space, or length.
+    private int whiteSpace(int i) {
+        if(this.bytes != null) {
+            return whiteSpace(this.bytes, i, this.length);
+        }
+        while(i < this.length && isWhiteSpace(this.text[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    // The same for ASCII bytes, for lexers that scan them themselves (see TableTokenManager).
+    static int whiteSpace(byte[] bytes, int i, int length) {
+        while(i < length && isWhiteSpace(bytes[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    // The grammar's white space: " ", "\t", "\n", "\r" and "\f".
+    static boolean isWhiteSpace(int c) {
+        return c <= ' ' && (0x100003600L & (1L << c)) != 0L;
+    }
+
+    char charAt(int i) {
+        return this.bytes != null ? (char) this.bytes[i] : this.text[i];
+    }
+
+    @Override
+    public void backup(int amount) {
+        this.pos -= amount;
+    }
+
+    @Override
+    public int getBeginLine() {
+        return this.eof ? eofLine() : lineOf(this.begin);
+    }
+
+    @Override
+    public int getBeginColumn() {
+        return this.eof ? eofColumn() : columnOf(this.begin);
+    }
+
+    @Override
+    public int getEndLine() {
+        return this.eof ? eofLine() : lineOf(this.pos);
+    }
+
+    @Override
+    public int getEndColumn() {
+        return this.eof ? eofColumn() : columnOf(this.pos);
+    }
+
+    // All four positions of the current token, with one line lookup if it sits on a plain line.
+    void positions(Token t) {
+        if(!this.eof) {
+            int l = lineIndex(this.begin);
+            if(!this.crooked.get(l) && (l + 1 == this.lineCount || this.pos < this.lineStarts[l + 1])) {
+                int lineStart = this.lineStarts[l];
+                t.beginLine = l + 1;
+                t.beginColumn = this.begin - lineStart + 1;
+                t.endLine = l + 1;
+                t.endColumn = this.pos - lineStart + 1;
+                return;
+            }
+        }
+        t.beginLine = getBeginLine();
+        t.beginColumn = getBeginColumn();
+        t.endLine = getEndLine();
+        t.endColumn = getEndColumn();
+    }
+
+    @Override
+    public String GetImage() {
+        return image(this.begin, this.pos - this.begin + 1);
+    }
+
+    @Override
+    public char[] GetSuffix(int len) {
+        char[] ret = new char[len];
+        for(int i = 0; i < len; i++) {
+            ret[i] = charAt(this.pos - len + 1 + i);
+        }
+        return ret;
+    }
+
+    @Override
+    public void Done() {
+    }
+
+    // For lexers that scan the source themselves (see TableTokenManager).
+    int length() {
+        return this.length;
+    }
+
+    // The source if it's kept as ASCII bytes, null if it was decoded.
+    byte[] bytes() {
+        return this.bytes;
+    }
+
+    int position() {
+        return this.pos;
+    }
+
+    // Whether an invalid escape cut the source short, reading up to it throws.
+    boolean truncated() {
+        return this.errorAt >= 0;
+    }
+
+    // Makes [begin, end] the current token, as if it had been read with BeginToken and readChar.
+    void select(int begin, int end) {
+        this.begin = begin;
+        this.pos = end;
+        this.eof = false;
+    }
+
+    // Makes the current token the end of input, as if BeginToken had run out of chars.
+    void selectEof() {
+        this.pos = this.length - 1;
+        this.eof = true;
+    }
+
+    // The current token as a slice of the source.
+    public int tokenOffset() {
+        return this.begin;
+    }
+
+    public int tokenLength() {
+        return this.eof ? 0 : this.pos - this.begin + 1;
+    }
+
+    public String image(int offset, int length) {
+        if(this.bytes != null) {
+            return new String(this.bytes, offset, length, java.nio.charset.StandardCharsets.ISO_8859_1);
+        }
+        return new String(this.text, offset, length);
+    }
+
+    @Override
+    public String GetImage(SymbolPool pool) {
+        int length = this.pos - this.begin + 1;
+        return this.bytes != null ? pool.intern(this.bytes, this.begin, length) : pool.intern(this.text, this.begin, length);
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Token manager for a SourceCharStream. Identifiers and literals come from the pool straight
+ * off the source, and comments are SliceTokens that don't get an image until someone asks.
+ *
+ * While recording is set, tokens other than comments go into it instead, and what
+ * getNextToken returns is one scratch Token with only the kind filled in (see TokenBuffer).
+ */
+public class SourceTokenManager extends PooledTokenManager {
+    protected SourceCharStream source;
+    TokenBuffer recording = null;
+    private final Token scratch = new Token();
+
+    public SourceTokenManager(SourceCharStream stream) {
+        super(stream);
+        this.source = stream;
+        stream.skipWhiteSpace = true;
+    }
+
+    @Override
+    public void ReInit(JavaCharStream stream) {
+        super.ReInit(stream);
+        this.source = (SourceCharStream) stream;
+        this.source.skipWhiteSpace = true;
+    }
+
+    @Override
+    protected Token jjFillToken() {
+        int kind = jjmatchedKind;
+        if(!this.keepComments && isSpecial(kind)) {
+            return this.skipped;
+        }
+        int offset = this.source.tokenOffset();
+        int length = this.source.tokenLength();
+        if(this.recording != null && !isSpecial(kind)) {
+            this.recording.add(kind, offset, offset + length);
+            this.scratch.kind = kind;
+            return this.scratch;
+        }
+        Token t;
+        if(isSpecial(kind)) {
+            t = new SliceToken(kind, null, this.source, offset, length);
+        }
+        else {
+            String image = jjstrLiteralImages[kind];
+            t = Token.newToken(kind, image != null ? image : this.source.GetImage(this.pool));
+        }
+        this.source.positions(t);
+        return t;
+    }
+
+    @Override
+    protected void CommonTokenAction(Token t) {
+        // A recorded token is decoded when it comes out of the buffer, see BufferTokenManager.
+        if(t != this.scratch) {
+            super.CommonTokenAction(t);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * One String per identifier spelling, for one compilation.
+ *
+ * The token manager takes identifier and literal images from here, so every use of a
+ * name in the tree and in the symbol tables is the same String. Its hash is worked out
+ * once, and the maps' equals() calls end at the identity check.
+ * Unlike String.intern(), nothing is shared between files or threads.
+ */
+public class SymbolPool {
+    // Open addressing: names and their hashes, at most half full.
+    private String[] names = new String[256];
+    private int[] hashes = new int[256];
+    private int shift = 32 - 8;
+    private int count = 0;
+
+    public String intern(char[] text, int offset, int length) {
+        int hash = 0;
+        for(int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + text[i];
+        }
+        int mask = this.names.length - 1;
+        int slot = slot(hash);
+        String name;
+        while((name = this.names[slot]) != null) {
+            if(this.hashes[slot] == hash && same(name, text, offset, length)) {
+                return name;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(slot, hash, new String(text, offset, length));
+    }
+
+    // Bytes are ASCII, each one the char with the same value.
+    public String intern(byte[] text, int offset, int length) {
+        int hash = 0;
+        for(int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + text[i];
+        }
+        int mask = this.names.length - 1;
+        int slot = slot(hash);
+        String name;
+        while((name = this.names[slot]) != null) {
+            if(this.hashes[slot] == hash && same(name, text, offset, length)) {
+                return name;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(slot, hash, new String(text, offset, length, java.nio.charset.StandardCharsets.ISO_8859_1));
+    }
+
+    public String intern(String image) {
+        // The same hash as above, String.hashCode is 31 * h + c too.
+        int hash = image.hashCode();
+        int mask = this.names.length - 1;
+        int slot = slot(hash);
+        String name;
+        while((name = this.names[slot]) != null) {
+            if(this.hashes[slot] == hash && name.equals(image)) {
+                return name;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(slot, hash, image);
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    private static boolean same(String name, char[] text, int offset, int length) {
+        if(name.length() != length) {
+            return false;
+        }
+        for(int i = 0; i < length; i++) {
+            if(name.charAt(i) != text[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean same(String name, byte[] text, int offset, int length) {
+        if(name.length() != length) {
+            return false;
+        }
+        for(int i = 0; i < length; i++) {
+            if(name.charAt(i) != text[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The top bits of a multiplicative hash: names like a1, a2, ... hash to neighbours, these don't.
+    private int slot(int hash) {
+        return (hash * 0x9E3779B9) >>> this.shift;
+    }
+
+    private String add(int slot, int hash, String name) {
+        this.names[slot] = name;
+        this.hashes[slot] = hash;
+        if(++this.count * 2 > this.names.length) {
+            grow();
+        }
+        return name;
+    }
+
+    private void grow() {
+        String[] oldNames = this.names;
+        int[] oldHashes = this.hashes;
+        this.names = new String[oldNames.length * 2];
+        this.hashes = new int[this.names.length];
+        this.shift--;
+        int mask = this.names.length - 1;
+        for(int i = 0; i < oldNames.length; i++) {
+            if(oldNames[i] == null) {
+                continue;
+            }
+            int hash = oldHashes[i];
+            int slot = slot(hash);
+            while(this.names[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            this.names[slot] = oldNames[i];
+            this.hashes[slot] = hash;
+        }
+    }
+}
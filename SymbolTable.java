@@ -1,3 +1,4 @@
+import java.io.PrintWriter;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
@@ -9,8 +10,16 @@ public class SymbolTable {
     public int currentIndex = 0; // It's a suprise tool that will help us later.
     public List<String> params;
 
+    // Where this file's findings go, so that parallel runs don't share System.out.
+    public Report report;
+
     public SymbolTable() {
+        this(new SilentReport());
+    }
+
+    public SymbolTable(Report report) {
         this.table = new HashMap<String, ClassSymbolTable>();
+        this.report = report;
     }
 
     public void enter(ClassSymbolTable toEnter) {
@@ -25,19 +34,19 @@ public class SymbolTable {
         return this.current;
     }
 
-    public void printTable() {
-        System.out.println("Symbol table:");
+    public void printTable(PrintWriter out) {
+        out.println("Symbol table:");
         for (Map.Entry<String, ClassSymbolTable> entry : this.table.entrySet()) {
-            System.out.println("Key = " + entry.getKey());
-            entry.getValue().printClass();
+            out.println("Key = " + entry.getKey());
+            entry.getValue().printClass(out);
         }
     }
 
-    public void printTableInfo() {
+    public void printTableInfo(PrintWriter out) {
         for (Map.Entry<String, ClassSymbolTable> entry : this.table.entrySet()) {
-            System.out.println("-----------" + "Class " + entry.getKey() + "-----------");
-            entry.getValue().printClassInfo(this.table);
-            System.out.println();
+            out.println("-----------" + "Class " + entry.getKey() + "-----------");
+            entry.getValue().printClassInfo(this.table, out);
+            out.println();
         }
     }
 }
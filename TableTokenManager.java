@@ -0,0 +1,307 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * A hand-written lexer for ASCII sources (see SourceCharStream.ascii), in place of the
+ * generated DFA/NFA cascade.
+ *
+ * Bytes are classified through a table; identifiers are scanned with it and keywords are
+ * told apart with a perfect hash on the first char, the last char and the length. Tokens
+ * are the same kinds as the generated lexer's, and come out with pooled images like
+ * SourceTokenManager's.
+ *
+ * The rest of a line comment and the end of a block comment are looked for eight bytes at a
+ * time, in longs read straight from the byte[]; the last few bytes of the input go one at a
+ * time. White space is skipped a byte at a time (see SourceCharStream.whiteSpace): between
+ * tokens it's mostly one space, or a line break and some indentation, too short for a word.
+ *
+ * Only what MiniJava programs are made of is handled here. For anything else (a char that
+ * starts no token, an unterminated comment, the end of the input) the generated lexer
+ * takes over from the start of the token, so errors and the EOF token come out exactly as
+ * before. Decoded sources are left to it altogether.
+ */
+public class TableTokenManager extends SourceTokenManager {
+    // Byte classes.
+    private static final byte OTHER = 0;
+    private static final byte SPACE = 1;
+    private static final byte LETTER = 2;
+    private static final byte DIGIT = 3;
+    private static final byte SINGLE = 4;  // a token of its own
+    private static final byte AMP = 5;
+    private static final byte SLASH = 6;
+
+    private static final byte[] CLASSES = new byte[128];
+    private static final int[] SINGLE_KINDS = new int[128];
+
+    // Keywords by (first + 3 * last + length) & 63, which has no collisions among them.
+    private static final byte[][] KEYWORDS = new byte[64][];
+    private static final int[] KEYWORD_KINDS = new int[64];
+
+    // Reads eight bytes of a byte[] as a long, the first one in the low byte.
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long RETURNS = 0x0D0D0D0D0D0D0D0DL;
+    private static final long SLASHES = 0x2F2F2F2F2F2F2F2FL;
+
+    // "System" only starts a keyword if this follows.
+    private static final byte[] PRINT_REST = ".out.println".getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+
+    static {
+        for(char c : " \t\n\r\f".toCharArray()) {
+            CLASSES[c] = SPACE;
+        }
+        for(char c = 'a'; c <= 'z'; c++) {
+            CLASSES[c] = LETTER;
+            CLASSES[c - 'a' + 'A'] = LETTER;
+        }
+        CLASSES['$'] = LETTER;
+        CLASSES['_'] = LETTER;
+        for(char c = '0'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT;
+        }
+        CLASSES['&'] = AMP;
+        CLASSES['/'] = SLASH;
+
+        for(int kind = 0; kind < jjstrLiteralImages.length; kind++) {
+            String image = jjstrLiteralImages[kind];
+            if(image == null || image.isEmpty()) {
+                continue;
+            }
+            if(image.length() == 1) {
+                CLASSES[image.charAt(0)] = SINGLE;
+                SINGLE_KINDS[image.charAt(0)] = kind;
+            }
+            else if(CLASSES[image.charAt(0)] == LETTER) {
+                // "System.out.println" goes in as "System", see identifier().
+                String word = kind == PRINT ? "System" : image;
+                int slot = keywordSlot(word.charAt(0), word.charAt(word.length() - 1), word.length());
+                if(KEYWORDS[slot] != null) {
+                    throw new IllegalStateException("Keyword hash collision: " + word);
+                }
+                KEYWORDS[slot] = word.getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+                KEYWORD_KINDS[slot] = kind;
+            }
+        }
+    }
+
+    private static int keywordSlot(int first, int last, int length) {
+        return (first + 3 * last + length) & 63;
+    }
+
+    // Comments read since the last token, latest first, like the generated getNextToken keeps them.
+    private Token specials = null;
+
+    public TableTokenManager(SourceCharStream stream) {
+        super(stream);
+    }
+
+    @Override
+    public Token getNextToken() {
+        SourceCharStream source = this.source;
+        byte[] text = source.bytes();
+        if(text == null || source.truncated()) {
+            return super.getNextToken();
+        }
+
+        this.specials = null;
+        int length = source.length();
+        int i = source.position() + 1;
+        while(i < length) {
+            byte c = text[i];
+            switch(CLASSES[c]) {
+                case SPACE:
+                    i = SourceCharStream.whiteSpace(text, i + 1, length);
+                    continue;
+                case LETTER:
+                    return identifier(text, i, length);
+                case DIGIT:
+                    int end = i;
+                    if(c != '0') {
+                        while(end + 1 < length && CLASSES[text[end + 1]] == DIGIT) {
+                            end++;
+                        }
+                    }
+                    return token(INTEGER_LITERAL, i, end);
+                case SINGLE:
+                    return token(SINGLE_KINDS[c], i, i);
+                case AMP:
+                    if(i + 1 < length && text[i + 1] == '&') {
+                        return token(AND, i, i + 1);
+                    }
+                    return fallBack();
+                case SLASH:
+                    int comment = comment(text, i, length);
+                    if(comment < 0) {
+                        return fallBack();
+                    }
+                    i = comment + 1;
+                    continue;
+                default:
+                    return fallBack();
+            }
+        }
+        return fallBack();
+    }
+
+    // An identifier or a keyword starting at i.
+    private Token identifier(byte[] text, int i, int length) {
+        int end = i;
+        while(end + 1 < length) {
+            byte cls = CLASSES[text[end + 1]];
+            if(cls != LETTER && cls != DIGIT) {
+                break;
+            }
+            end++;
+        }
+
+        int slot = keywordSlot(text[i], text[end], end - i + 1);
+        byte[] keyword = KEYWORDS[slot];
+        if(keyword == null || !java.util.Arrays.equals(keyword, 0, keyword.length, text, i, end + 1)) {
+            return token(IDENTIFIER, i, end);
+        }
+        if(KEYWORD_KINDS[slot] != PRINT) {
+            return token(KEYWORD_KINDS[slot], i, end);
+        }
+        // The longest match wins, so "System.out.println" beats the identifier "System".
+        int rest = end + 1 + PRINT_REST.length;
+        if(rest <= length && java.util.Arrays.equals(PRINT_REST, 0, PRINT_REST.length, text, end + 1, rest)) {
+            return token(PRINT, i, rest - 1);
+        }
+        return token(IDENTIFIER, i, end);
+    }
+
+    /**
+     * Reads the comment starting at i into specials, if comments are kept, and returns the index
+     * of its last char.
+     * Returns -1 if there is none there, or it doesn't end before the input does.
+     */
+    private int comment(byte[] text, int i, int length) {
+        if(i + 1 >= length) {
+            return -1;
+        }
+        int kind;
+        int end;
+        if(text[i + 1] == '/') {
+            // Up to and with the line break, which has to be there.
+            end = lineEnd(text, i + 2, length);
+            if(end == length) {
+                return -1;
+            }
+            if(text[end] == '\r' && end + 1 < length && text[end + 1] == '\n') {
+                end++;
+            }
+            kind = SINGLE_LINE_COMMENT;
+        }
+        else if(text[i + 1] == '*') {
+            // A formal comment ends at the first "*/" after "/**", a multi-line one at the first after "/*".
+            // Both match "/**...*/" and the longest match wins, so "/**/" is only a comment of its own
+            // if no "*/" comes after it.
+            boolean formal = i + 2 < length && text[i + 2] == '*';
+            end = close(text, formal ? i + 4 : i + 3, length);
+            kind = formal ? FORMAL_COMMENT : MULTI_LINE_COMMENT;
+            if(end < 0 && formal && i + 3 < length && text[i + 3] == '/') {
+                end = i + 3;
+                kind = MULTI_LINE_COMMENT;
+            }
+            if(end < 0) {
+                return -1;
+            }
+        }
+        else {
+            return -1;
+        }
+
+        if(!this.keepComments) {
+            return end;
+        }
+        Token comment = token(kind, i, end);
+        if(this.specials != null) {
+            comment.specialToken = this.specials;
+            this.specials.next = comment;
+        }
+        this.specials = comment;
+        return end;
+    }
+
+    // The index of the first '/' from start on that comes right after a '*', or -1.
+    private static int close(byte[] text, int start, int length) {
+        for(int end = slash(text, start, length); end < length; end = slash(text, end + 1, length)) {
+            if(text[end - 1] == '*') {
+                return end;
+            }
+        }
+        return -1;
+    }
+
+    // The index of the first '\n' or '\r' from i on, or length.
+    private static int lineEnd(byte[] text, int i, int length) {
+        for(; i + 8 <= length; i += 8) {
+            long word = (long) LONGS.get(text, i);
+            long ends = zeros(word ^ NEWLINES) | zeros(word ^ RETURNS);
+            if(ends != 0) {
+                return i + first(ends);
+            }
+        }
+        while(i < length && text[i] != '\n' && text[i] != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    // The index of the first '/' from i on, or length.
+    private static int slash(byte[] text, int i, int length) {
+        for(; i + 8 <= length; i += 8) {
+            long slashes = zeros((long) LONGS.get(text, i) ^ SLASHES);
+            if(slashes != 0) {
+                return i + first(slashes);
+            }
+        }
+        while(i < length && text[i] != '/') {
+            i++;
+        }
+        return i;
+    }
+
+    // The top bit of every byte of word that is 0, and no other bits. Exact, carries can't cross bytes.
+    private static long zeros(long word) {
+        return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+    }
+
+    // Which byte of a word has the lowest bit set in bits, which mustn't be 0.
+    private static int first(long bits) {
+        return Long.numberOfTrailingZeros(bits) >>> 3;
+    }
+
+    private Token token(int kind, int begin, int end) {
+        this.source.select(begin, end);
+        jjmatchedKind = kind;
+        Token t = jjFillToken();
+        if(kind > MULTI_LINE_COMMENT) {
+            t.specialToken = this.specials;
+            CommonTokenAction(t);
+        }
+        return t;
+    }
+
+    // The generated lexer carries on from the last token, the comments read here go in front of its own.
+    private Token fallBack() {
+        Token specials = this.specials;
+        Token t = super.getNextToken();
+        if(specials == null) {
+            return t;
+        }
+        Token first = t.specialToken;
+        if(first == null) {
+            t.specialToken = specials;
+            return t;
+        }
+        while(first.specialToken != null) {
+            first = first.specialToken;
+        }
+        first.specialToken = specials;
+        specials.next = first;
+        return t;
+    }
+}
@@ -0,0 +1,76 @@
+import java.io.BufferedWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * The output the checker has always had, buffered until flush().
+ */
+public class TextReport implements Report {
+    private final PrintWriter out;
+    private final PrintWriter err;
+
+    public TextReport(PrintStream out, PrintStream err) {
+        this.out = new PrintWriter(new BufferedWriter(writer(out), 1 << 16), false);
+        this.err = new PrintWriter(new BufferedWriter(writer(err)), false);
+    }
+
+    // Encodes through the stream itself, in its charset: UTF-8 for a CompileTask's buffers, the console's otherwise.
+    private static Writer writer(PrintStream stream) {
+        return new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) {
+                stream.append(CharBuffer.wrap(chars, offset, length));
+            }
+
+            @Override
+            public void flush() {
+                stream.flush();
+            }
+
+            @Override
+            public void close() {
+                stream.flush();
+            }
+        };
+    }
+
+    @Override
+    public void parsed() {
+        this.err.println("Program parsed successfully.");
+    }
+
+    @Override
+    public void tables(SymbolTable table) {
+        table.printTableInfo(this.out);
+        table.printTable(this.out);
+    }
+
+    @Override
+    public void methodChecked(String name) {
+        this.out.println(name);
+    }
+
+    @Override
+    public void mismatch(String expected, String found) {
+        this.out.println(expected + " != " + found);
+    }
+
+    @Override
+    public void error(Outcome outcome, String message) {
+        if(outcome == Outcome.INTERNAL_ERROR) {
+            this.err.println(message);
+        }
+        else {
+            this.out.println(message);
+        }
+    }
+
+    @Override
+    public void flush() {
+        // stderr first, like the unbuffered version would have shown it.
+        this.err.flush();
+        this.out.flush();
+    }
+}
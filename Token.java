@@ -34,6 +34,17 @@ public class Token implements java.io.Serializable {
    */
   public String image;
 
+  /**
+   * The value of an INTEGER_LITERAL, decoded by the token manager. 0 for other kinds.
+   */
+  public int value;
+
+  /**
+   * Where this token is in the parser's token list, counted from 1. Only kept up while the
+   * parser has a LookaheadMemo, 0 otherwise.
+   */
+  public int index;
+
   /**
    * A reference to the next regular (non-special) token from the input
    * stream.  If this is the last token from the input stream, or if the
@@ -67,7 +78,7 @@ public class Token implements java.io.Serializable {
    * override this method as appropriate.
    */
   public Object getValue() {
-    return null;
+    return kind == MiniJavaParserConstants.INTEGER_LITERAL ? Integer.valueOf(value) : null;
   }
 
   /**
@@ -0,0 +1,65 @@
+/**
+ * The tokens of a whole SourceCharStream, lexed before parsing starts, in parallel arrays
+ * instead of Token objects: token i is kinds[i], from starts[i] up to (not with) ends[i]
+ * in the source. The last one is EOF, unless lexing failed; then error is what the lexer
+ * threw, and BufferTokenManager throws it when the parser gets that far.
+ *
+ * Comments aren't kept, the parser never looks at special tokens.
+ */
+public class TokenBuffer {
+    public final SourceCharStream source;
+    public int[] kinds;
+    public int[] starts;
+    public int[] ends;
+    public int size = 0;
+    public Error error = null;
+
+    public TokenBuffer(SourceCharStream source, int capacity) {
+        this.source = source;
+        this.kinds = new int[Math.max(16, capacity)];
+        this.starts = new int[this.kinds.length];
+        this.ends = new int[this.kinds.length];
+    }
+
+    /**
+     * Runs lexer over its whole source. Tokens are recorded by the lexer's jjFillToken, so
+     * none of them is made into an object, and comments are skipped.
+     */
+    public static TokenBuffer lex(SourceTokenManager lexer) {
+        // MiniJava sources run at about one token per three chars.
+        TokenBuffer tokens = new TokenBuffer(lexer.source, lexer.source.length() / 2);
+        boolean keepComments = lexer.keepComments;
+        lexer.recording = tokens;
+        lexer.keepComments = false;
+        try{
+            while(lexer.getNextToken().kind != MiniJavaParserConstants.EOF) {
+                // Recorded already.
+            }
+        }
+        catch(VirtualMachineError ex){
+            throw ex;
+        }
+        catch(Error ex){
+            // TokenMgrError, or a bad escape from the stream.
+            tokens.error = ex;
+        }
+        finally{
+            lexer.recording = null;
+            lexer.keepComments = keepComments;
+        }
+        return tokens;
+    }
+
+    public void add(int kind, int start, int end) {
+        if(this.size == this.kinds.length) {
+            int capacity = this.size * 2;
+            this.kinds = java.util.Arrays.copyOf(this.kinds, capacity);
+            this.starts = java.util.Arrays.copyOf(this.starts, capacity);
+            this.ends = java.util.Arrays.copyOf(this.ends, capacity);
+        }
+        this.kinds[this.size] = kind;
+        this.starts[this.size] = start;
+        this.ends[this.size] = end;
+        this.size++;
+    }
+}
@@ -100,7 +100,7 @@ public class TypeCheckVisitor extends GJDepthFirst<String, SymbolTable>{
 
         String myName = n.f2.accept(this, argu);
 
-        System.out.println(myName);
+        argu.report.methodChecked(myName);
         MethodSymbolTable current = currentClass.methods.get(myName);
 
         currentClass.enter(current);
@@ -127,7 +127,7 @@ public class TypeCheckVisitor extends GJDepthFirst<String, SymbolTable>{
             }
 
             if(!matchFound) {
-                System.out.println(current.type + " != " + ret);
+                argu.report.mismatch(current.type, ret);
                 throw new Exception("Type mismatch in return type.");
             }
         }
@@ -328,7 +328,7 @@ public class TypeCheckVisitor extends GJDepthFirst<String, SymbolTable>{
             }
 
             if(!matchFound) {
-                System.out.println(identifier + " != " + expr);
+                argu.report.mismatch(identifier, expr);
                 throw new Exception("Type mismatch in assignment.");
             }
         }
@@ -637,7 +637,7 @@ public class TypeCheckVisitor extends GJDepthFirst<String, SymbolTable>{
             }
 
             if(!matchFound) {
-                System.out.println(param + " != " + expr);
+                argu.report.mismatch(param, expr);
                 throw new Exception("Type mismatch in parameter.");
             }
         }
@@ -674,7 +674,7 @@ public class TypeCheckVisitor extends GJDepthFirst<String, SymbolTable>{
             }
 
             if(!matchFound) {
-                System.out.println(param + " != " + expr);
+                argu.report.mismatch(param, expr);
                 throw new Exception("Type mismatch in parameter.");
             }
         }
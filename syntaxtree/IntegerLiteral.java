@@ -10,9 +10,15 @@ package syntaxtree;
  */
 public class IntegerLiteral implements Node {
    public NodeToken f0;
+   public int value;
 
    public IntegerLiteral(NodeToken n0) {
+      this(n0, Integer.parseInt(n0.tokenImage));
+   }
+
+   public IntegerLiteral(NodeToken n0, int value) {
       f0 = n0;
+      this.value = value;
    }
 
    public void accept(visitor.Visitor v) throws Exception {
@@ -0,0 +1,2 @@
+class Main { public static void main(String[] a){ System.out.println(new A().f(3)); } }
+class A { int[] b; public int f(int n) { int q; q = n..y; return q; } }